@@ -0,0 +1,213 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.util.IntIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Частота обращений к задачам в постоянной памяти.
+// Count-min sketch: DEPTH строк по width счётчиков, каждое обращение увеличивает
+// по одному счётчику в строке, оценка - минимум из них (может быть только завышена).
+// После width * 10 обращений все счётчики делятся пополам, поэтому старые
+// обращения весят всё меньше и оценка отражает текущую нагрузку.
+// Самые частые id держатся в куче из topK элементов (минимум в корне):
+// в неё попадает только id, чья оценка больше минимальной в куче.
+// Счётчики атомарные и обновляются без блокировок, куча - под блокировкой,
+// которую берут только кандидаты в top-K.
+public class AccessFrequencyTracker {
+    public static final int DEFAULT_WIDTH = 4096;
+    public static final int DEFAULT_TOP_K = 64;
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+    private final int widthBits;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    // куча top-K, защищена lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int[] heapIds;
+    private final int[] heapCounts;
+    private final IntIntHashMap heapPositions;
+    private int heapSize;
+    private volatile int minHeapCount;
+
+    public AccessFrequencyTracker() {
+        this(DEFAULT_WIDTH, DEFAULT_TOP_K);
+    }
+
+    //width округляется вверх до степени двойки
+    public AccessFrequencyTracker(int width, int topK) {
+        if (width <= 0 || topK <= 0) {
+            throw new IllegalArgumentException("Размеры должны быть положительными: " + width + ", " + topK);
+        }
+        int size = Integer.highestOneBit(Math.max(width * 2 - 1, 1));
+        counters = new AtomicIntegerArray(size * DEPTH);
+        mask = size - 1;
+        widthBits = Integer.numberOfTrailingZeros(size);
+        sampleSize = size * 10;
+        heapIds = new int[topK];
+        heapCounts = new int[topK];
+        heapPositions = new IntIntHashMap(topK);
+    }
+
+    public void record(int id) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, id)));
+        }
+        if (heapSize < heapIds.length || estimate > minHeapCount) {
+            offer(id, estimate);
+        }
+        if (additions.incrementAndGet() == sampleSize) {
+            age();
+        }
+    }
+
+    //оценка числа обращений с учётом старения
+    public int estimate(int id) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, id)));
+        }
+        return estimate;
+    }
+
+    // Не больше limit самых частых id, от самого частого
+    public int[] top(int limit) {
+        lock.lock();
+        try {
+            int count = Math.min(limit, heapSize);
+            long[] order = new long[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                // по убыванию текущей оценки, при равенстве - по возрастанию id
+                order[i] = (long) (Integer.MAX_VALUE - estimate(heapIds[i])) << 32 | heapIds[i];
+            }
+            Arrays.sort(order);
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = (int) order[i];
+            }
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Удалённый id убирается из top-K; счётчики sketch не уменьшаются и сами сойдут на нет при старении
+    public void remove(int id) {
+        lock.lock();
+        try {
+            int position = heapPositions.remove(id);
+            if (position < 0) {
+                return;
+            }
+            heapSize--;
+            if (position < heapSize) {
+                int moved = heapIds[heapSize];
+                place(position, moved, heapCounts[heapSize]);
+                siftUp(position);
+                siftDown(heapPositions.get(moved));
+            }
+            updateMin();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int index(int row, int id) {
+        int h = (id + row) * SEEDS[row];
+        h ^= h >>> 16;
+        return (row << widthBits) | (h & mask);
+    }
+
+    private void offer(int id, int estimate) {
+        lock.lock();
+        try {
+            int position = heapPositions.get(id);
+            if (position >= 0) {
+                if (estimate > heapCounts[position]) {
+                    heapCounts[position] = estimate;
+                    siftDown(position);
+                }
+            } else if (heapSize < heapIds.length) {
+                place(heapSize, id, estimate);
+                siftUp(heapSize++);
+            } else if (estimate > heapCounts[0]) {
+                heapPositions.remove(heapIds[0]);
+                place(0, id, estimate);
+                siftDown(0);
+            }
+            updateMin();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Старение: все счётчики и частоты в куче делятся пополам
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        lock.lock();
+        try {
+            for (int i = 0; i < heapSize; i++) {
+                heapCounts[i] >>>= 1;
+            }
+            updateMin();
+        } finally {
+            lock.unlock();
+        }
+        additions.addAndGet(-sampleSize);
+    }
+
+    private void updateMin() {
+        minHeapCount = heapSize == 0 ? 0 : heapCounts[0];
+    }
+
+    private void place(int position, int id, int count) {
+        heapIds[position] = id;
+        heapCounts[position] = count;
+        heapPositions.put(id, position);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapCounts[parent] <= heapCounts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            if (left < heapSize && heapCounts[left] < heapCounts[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < heapSize && heapCounts[left + 1] < heapCounts[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = heapIds[a];
+        int count = heapCounts[a];
+        place(a, heapIds[b], heapCounts[b]);
+        place(b, id, count);
+    }
+}
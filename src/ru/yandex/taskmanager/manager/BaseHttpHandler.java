@@ -1,34 +1,69 @@
 package ru.yandex.taskmanager.manager;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class BaseHttpHandler {
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
     protected final Gson gson;
+    private final ResponseCache responseCache; // null - ответы не кэшируются
+    //обмены, чей ответ нужно сохранить в кэш, когда он будет отправлен
+    private final Map<HttpExchange, PendingEntry> pendingEntries = new ConcurrentHashMap<>();
+
+    private record PendingEntry(String key, long version, int tags) {
+    }
 
     public BaseHttpHandler(Gson gson) {
+        this(gson, null);
+    }
+
+    public BaseHttpHandler(Gson gson, ResponseCache responseCache) {
         this.gson = gson;
+        this.responseCache = responseCache;
     }
 
     protected void handleRequest(HttpExchange exchange, RequestHandler handler) throws IOException {
         try {
             handler.handle(exchange);
         } catch (NotFoundException e) {
+            exchange.getResponseHeaders().remove("ETag");
             sendNotFound(exchange);
         } catch (TaskOverlapException e) {
+            exchange.getResponseHeaders().remove("ETag");
             sendHasInteractions(exchange);
         } catch (IllegalArgumentException e) {
+            exchange.getResponseHeaders().remove("ETag");
             sendBadRequest(exchange, e.getMessage());
         } catch (Exception e) {
-            sendText(exchange, "Internal Server Error", 500);
+            // если ответ уже начал отправляться, остаётся только закрыть обмен
+            if (exchange.getResponseCode() == -1) {
+                exchange.getResponseHeaders().remove("ETag");
+                sendText(exchange, "Internal Server Error", 500);
+            }
         } finally {
+            pendingEntries.remove(exchange);
             exchange.close();
         }
     }
@@ -50,13 +85,190 @@ public abstract class BaseHttpHandler {
     protected void sendJson(HttpExchange exchange, Object object, int statusCode) throws IOException {
         String json = gson.toJson(object);
         byte[] response = json.getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        PendingEntry pending = pendingEntries.remove(exchange);
+        if (pending != null && statusCode == 200) {
+            responseCache.put(pending.key(), pending.version(), pending.tags(), response, extraHeaders(exchange));
+        }
         exchange.sendResponseHeaders(statusCode, response.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(response);
         }
     }
 
+    // Потоковая отдача списка: элементы сериализуются JsonWriter прямо в тело ответа
+    // (chunked), без промежуточных строки и массива байт. Клиент начинает получать
+    // данные сразу, а память на сериализацию не зависит от размера списка.
+    // Если ответ ждут в кэше, тело копируется по пути, пока не превысит размер записи
+    protected void streamJson(HttpExchange exchange, Iterable<?> items, int statusCode) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        PendingEntry pending = statusCode == 200 ? pendingEntries.remove(exchange) : null;
+        Map<String, String> headers = pending != null ? extraHeaders(exchange) : null;
+        exchange.sendResponseHeaders(statusCode, 0);
+        OutputStream body = exchange.getResponseBody();
+        CapturingOutputStream capture = null;
+        if (pending != null) {
+            capture = new CapturingOutputStream(body, responseCache.maxEntryBytes());
+            body = capture;
+        }
+        try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(
+                new BufferedOutputStream(body, STREAM_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (Object item : items) {
+                if (item == null) {
+                    writer.nullValue();
+                } else {
+                    gson.toJson(item, item.getClass(), writer);
+                }
+            }
+            writer.endArray();
+            writer.flush();
+            // в кэш - до закрытия тела: после него клиент получил ответ и может сразу повторить запрос
+            if (capture != null && !capture.overflowed()) {
+                responseCache.put(pending.key(), pending.version(), pending.tags(), capture.captured(), headers);
+            }
+        }
+    }
+
+    // Ответ из кэша, если там есть тело для этого пути и запроса, построенное по версии version.
+    // Иначе следующий ответ 200 через sendJson или streamJson будет сохранён в кэш
+    // с зависимостями dependsOn. Версию, как и для ETag, нужно брать до чтения данных
+    protected boolean sendCached(HttpExchange exchange, long version, TypeTask... dependsOn) throws IOException {
+        if (responseCache == null) {
+            return false;
+        }
+        String path = exchange.getRequestURI().getRawPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        String key = query == null ? path : path + "?" + query;
+        ResponseCache.Entry entry = responseCache.get(key, version);
+        if (entry == null) {
+            int tags = 0;
+            for (TypeTask type : dependsOn) {
+                tags |= ResponseCache.tag(type);
+            }
+            pendingEntries.put(exchange, new PendingEntry(key, version, tags));
+            return false;
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        entry.headers().forEach(headers::set);
+        headers.set("Content-Type", JSON_CONTENT_TYPE);
+        byte[] response = entry.body();
+        if (entry.gzipped() != null) {
+            headers.set("Vary", "Accept-Encoding");
+            if (acceptsGzip(exchange)) {
+                headers.set("Content-Encoding", "gzip");
+                response = entry.gzipped();
+            }
+        }
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+        return true;
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        for (String value : exchange.getRequestHeaders().getOrDefault("Accept-Encoding", List.of())) {
+            for (String coding : value.split(",")) {
+                String name = coding.trim();
+                int params = name.indexOf(';');
+                if (params >= 0) {
+                    if (name.substring(params).replace(" ", "").equals(";q=0")) {
+                        continue;
+                    }
+                    name = name.substring(0, params).trim();
+                }
+                if (name.equalsIgnoreCase("gzip")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //заголовки ответа, которые нужно повторить при отдаче из кэша (курсор страницы и т.п.)
+    private static Map<String, String> extraHeaders(HttpExchange exchange) {
+        Map<String, String> extra = new HashMap<>();
+        exchange.getResponseHeaders().forEach((name, values) -> {
+            if (!values.isEmpty() && !name.equalsIgnoreCase("Content-Type") && !name.equalsIgnoreCase("ETag")) {
+                extra.put(name, values.get(0));
+            }
+        });
+        return extra;
+    }
+
+    //копия тела ответа до limit байт; больше - копия выбрасывается, ответ идёт дальше как есть
+    private static class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream(1024);
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        private void checkLimit() {
+            if (copy.size() > limit) {
+                copy = null;
+            }
+        }
+
+        boolean overflowed() {
+            return copy == null;
+        }
+
+        byte[] captured() {
+            return copy.toByteArray();
+        }
+    }
+
+    // Условный GET: ETag строится по версии данных, которую нужно взять до их чтения.
+    // Если клиент прислал тот же ETag в If-None-Match, отправляется 304 без тела и
+    // возвращается true - данные можно не читать. Иначе ETag уходит с обычным ответом
+    protected boolean notModified(HttpExchange exchange, String name, long version) throws IOException {
+        String etag = "\"" + name + "-" + Long.toString(version, 36) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matchesAny(ifNoneMatch, etag)) {
+            return false;
+        }
+        exchange.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    //If-None-Match: список ETag через запятую или *, слабые W/ сравниваются как сильные
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         sendText(exchange, "Объект не найден", 404);
     }
@@ -80,6 +292,47 @@ public abstract class BaseHttpHandler {
         }
     }
 
+    //декодированный параметр запроса или null
+    protected String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    protected int queryInt(HttpExchange exchange, String name, int defaultValue) {
+        String value = queryParam(exchange, name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("параметр " + name + " должен быть числом");
+        }
+    }
+
+    //время в формате ISO (2024-01-31T10:00) или null, если параметра нет
+    protected LocalDateTime queryTime(HttpExchange exchange, String name) {
+        String value = queryParam(exchange, name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("параметр " + name + " должен быть временем вида 2024-01-31T10:00");
+        }
+    }
+
     protected Optional<Integer> parseIdFromPath(HttpExchange exchange) {
         String path = exchange.getRequestURI().getPath();
         String[] parts = path.split("/");
@@ -0,0 +1,421 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Двоичный снимок задач.
+// Заголовок: "TMSB", версия, флаги (бит 0 - блоки сжаты Deflate).
+// Дальше блоки: число записей, длина исходных данных, длина данных в файле,
+// данные, CRC32 исходных данных. Блок с нулём записей - конец файла.
+// Запись: тип, id, статус, имя, описание, [epicId], флаги наличия полей,
+// продолжительность в минутах, время в минутах от эпохи (UTC).
+// Числа - varint, строки - длина+1 (0 - null) и байты UTF-8.
+// Секунды и наносекунды пишутся отдельно, только если они не нулевые.
+public final class BinarySnapshot {
+    private static final byte[] MAGIC = {'T', 'M', 'S', 'B'};
+    private static final int VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    // блок превышает BLOCK_SIZE только на последнюю запись; больший размер в заголовке - повреждение
+    private static final int MAX_BLOCK_SIZE = 256 * BLOCK_SIZE;
+
+    private static final int TYPE_TASK = 0;
+    private static final int TYPE_SUBTASK = 1;
+    private static final int TYPE_EPIC = 2;
+
+    // флаги наличия полей записи
+    private static final int HAS_DURATION = 1;
+    private static final int DURATION_NANOS = 1 << 1;
+    private static final int HAS_START = 1 << 2;
+    private static final int START_NANOS = 1 << 3;
+    private static final int HAS_END = 1 << 4;
+    private static final int END_NANOS = 1 << 5;
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isBinary(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < MAGIC.length) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    public static void write(OutputStream out, Iterable<? extends Task> tasks, boolean compress) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(compress ? FLAG_DEFLATE : 0);
+
+        Buffer block = new Buffer();
+        Buffer header = new Buffer();
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        int count = 0;
+        try {
+            for (Task task : tasks) {
+                if (task.getStatus() == null) {
+                    continue; // как в CSV: задача без статуса в снимок не попадает
+                }
+                writeTask(block, task);
+                count++;
+                if (block.size() >= BLOCK_SIZE) {
+                    writeBlock(out, header, block, count, deflater);
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                writeBlock(out, header, block, count, deflater);
+            }
+            header.reset();
+            header.writeVarLong(0);
+            header.writeTo(out);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private static void writeBlock(OutputStream out, Buffer header, Buffer block, int count,
+                                   Deflater deflater) throws IOException {
+        byte[] raw = block.array();
+        int rawLength = block.size();
+        if (rawLength > MAX_BLOCK_SIZE) {
+            throw new ManagerSaveException("Запись снимка больше " + MAX_BLOCK_SIZE + " байт");
+        }
+        byte[] data = raw;
+        int dataLength = rawLength;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(raw, 0, rawLength);
+            deflater.finish();
+            data = new byte[rawLength + rawLength / 100 + 64];
+            dataLength = 0;
+            while (!deflater.finished()) {
+                if (dataLength == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                dataLength += deflater.deflate(data, dataLength, data.length - dataLength);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, rawLength);
+
+        header.reset();
+        header.writeVarLong(count);
+        header.writeVarLong(rawLength);
+        header.writeVarLong(dataLength);
+        header.writeTo(out);
+        out.write(data, 0, dataLength);
+        int checksum = (int) crc.getValue();
+        out.write(checksum >>> 24);
+        out.write(checksum >>> 16);
+        out.write(checksum >>> 8);
+        out.write(checksum);
+        block.reset();
+    }
+
+    // Блок с неверной контрольной суммой пропускается целиком. Если повреждён сам заголовок
+    // блока, границ следующих блоков не найти, и остаток снимка пропускается
+    public static void read(InputStream source, Consumer<Task> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source, BLOCK_SIZE));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new ManagerSaveException("Файл не является двоичным снимком");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new ManagerSaveException("Неподдерживаемая версия снимка: " + version);
+        }
+        boolean compressed = (in.readUnsignedByte() & FLAG_DEFLATE) != 0;
+        Inflater inflater = compressed ? new Inflater() : null;
+        try {
+            byte[] raw = new byte[BLOCK_SIZE];
+            while (true) {
+                long count = readVarLong(in);
+                if (count == 0) {
+                    return;
+                }
+                long rawLength = readVarLong(in);
+                long dataLength = readVarLong(in);
+                if (!isValidHeader(count, rawLength, dataLength, compressed)) {
+                    System.err.println("Повреждён заголовок блока снимка, остаток снимка пропущен");
+                    return;
+                }
+                byte[] data = new byte[(int) dataLength];
+                in.readFully(data);
+                int checksum = in.readInt();
+
+                int length = (int) rawLength;
+                if (raw.length < length) {
+                    raw = new byte[length];
+                }
+                boolean valid;
+                if (compressed) {
+                    valid = inflate(inflater, data, raw, length);
+                } else {
+                    valid = true;
+                    System.arraycopy(data, 0, raw, 0, length);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(raw, 0, length);
+                if (!valid || (int) crc.getValue() != checksum) {
+                    System.err.println("Повреждён блок снимка из " + count + " записей, блок пропущен");
+                    continue;
+                }
+                Cursor cursor = new Cursor(raw, length);
+                for (long i = 0; i < count; i++) {
+                    consumer.accept(readTask(cursor));
+                }
+            }
+        } catch (EOFException e) {
+            throw new ManagerSaveException("Снимок обрезан", e);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    // Каждая запись занимает хотя бы байт; сжатые данные длиннее исходных не больше,
+    // чем на запас Deflate; несжатые совпадают с ними по длине
+    private static boolean isValidHeader(long count, long rawLength, long dataLength, boolean compressed) {
+        if (count < 0 || rawLength <= 0 || rawLength > MAX_BLOCK_SIZE || count > rawLength) {
+            return false;
+        }
+        return compressed
+                ? dataLength > 0 && dataLength <= rawLength + rawLength / 100 + 64
+                : dataLength == rawLength;
+    }
+
+    //false, если сжатые данные повреждены
+    private static boolean inflate(Inflater inflater, byte[] data, byte[] raw, int rawLength) {
+        inflater.reset();
+        inflater.setInput(data);
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, rawLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            return length == rawLength;
+        } catch (DataFormatException e) {
+            return false;
+        }
+    }
+
+    private static void writeTask(Buffer out, Task task) {
+        int type = task instanceof Subtask ? TYPE_SUBTASK : task instanceof Epic ? TYPE_EPIC : TYPE_TASK;
+        out.write(type);
+        out.writeVarLong(task.getId() & 0xFFFFFFFFL);
+        out.write(task.getStatus().ordinal());
+        out.writeString(task.getName());
+        out.writeString(task.getDescription());
+        if (task instanceof Subtask subtask) {
+            out.writeVarLong(subtask.getEpicId() & 0xFFFFFFFFL);
+        }
+
+        Duration duration = task.getDuration();
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task instanceof Epic epic ? epic.getEndTime() : null;
+        int flags = 0;
+        if (duration != null) {
+            flags |= HAS_DURATION | (duration.toNanos() % NANOS_PER_MINUTE != 0 ? DURATION_NANOS : 0);
+        }
+        if (start != null) {
+            flags |= HAS_START | (nanosOfMinute(start) != 0 ? START_NANOS : 0);
+        }
+        if (end != null) {
+            flags |= HAS_END | (nanosOfMinute(end) != 0 ? END_NANOS : 0);
+        }
+        out.write(flags);
+        if (duration != null) {
+            out.writeVarLong(zigZag(duration.toMinutes()));
+            if ((flags & DURATION_NANOS) != 0) {
+                out.writeVarLong(zigZag(duration.minusMinutes(duration.toMinutes()).toNanos()));
+            }
+        }
+        writeDateTime(out, start, (flags & START_NANOS) != 0);
+        writeDateTime(out, end, (flags & END_NANOS) != 0);
+    }
+
+    private static long nanosOfMinute(LocalDateTime time) {
+        return time.getSecond() * 1_000_000_000L + time.getNano();
+    }
+
+    private static void writeDateTime(Buffer out, LocalDateTime time, boolean withNanos) {
+        if (time == null) {
+            return;
+        }
+        out.writeVarLong(zigZag(Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60)));
+        if (withNanos) {
+            out.writeVarLong(nanosOfMinute(time));
+        }
+    }
+
+    private static Task readTask(Cursor in) {
+        int type = in.read();
+        int id = (int) in.readVarLong();
+        int statusIndex = in.read();
+        if (statusIndex >= STATUSES.length) {
+            throw new ManagerSaveException("Неизвестный статус в снимке: " + statusIndex);
+        }
+        TaskStatus status = STATUSES[statusIndex];
+        String name = in.readString();
+        String description = in.readString();
+        int epicId = type == TYPE_SUBTASK ? (int) in.readVarLong() : 0;
+
+        int flags = in.read();
+        Duration duration = null;
+        if ((flags & HAS_DURATION) != 0) {
+            duration = Duration.ofMinutes(unZigZag(in.readVarLong()));
+            if ((flags & DURATION_NANOS) != 0) {
+                duration = duration.plusNanos(unZigZag(in.readVarLong()));
+            }
+        }
+        LocalDateTime start = (flags & HAS_START) != 0 ? readDateTime(in, (flags & START_NANOS) != 0) : null;
+        LocalDateTime end = (flags & HAS_END) != 0 ? readDateTime(in, (flags & END_NANOS) != 0) : null;
+
+        return switch (type) {
+            case TYPE_TASK -> new Task(id, name, description, status, duration, start);
+            case TYPE_SUBTASK -> new Subtask(id, name, description, status, epicId, duration, start);
+            case TYPE_EPIC -> new Epic(id, name, description, status, duration, start, end);
+            default -> throw new ManagerSaveException("Неизвестный тип записи в снимке: " + type);
+        };
+    }
+
+    private static LocalDateTime readDateTime(Cursor in, boolean withNanos) {
+        long minutes = unZigZag(in.readVarLong());
+        long nanos = withNanos ? in.readVarLong() : 0;
+        return LocalDateTime.ofEpochSecond(minutes * 60 + nanos / 1_000_000_000L,
+                (int) (nanos % 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //число из заголовка блока; -1 - слишком длинное, то есть заголовок повреждён
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    // буфер блока при записи
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(BLOCK_SIZE + 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    // чтение записей из проверенного блока
+    private static class Cursor {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        Cursor(byte[] data, int limit) {
+            this.data = data;
+            this.limit = limit;
+        }
+
+        int read() {
+            if (position >= limit) {
+                throw new ManagerSaveException("Запись выходит за границу блока");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new ManagerSaveException("Слишком длинное число в снимке");
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > limit - position) {
+                throw new ManagerSaveException("Строка выходит за границу блока");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+// История просмотров ограниченного размера.
+// Хранятся только id: двусвязный список на массивах prev/next (индексы ячеек)
+// и таблица id -> ячейка. Все массивы выделяются в конструкторе,
+// add и remove работают за O(1) без выделения памяти.
+// При переполнении вытесняется самый давний просмотр.
+// Задачи достаются по id через resolver только в getHistory,
+// поэтому удалённые задачи в историю не попадают.
+public class BoundedHistoryManager implements HistoryManager {
+    private static final int NONE = -1;
+
+    private final int[] ids;
+    private final int[] prev;
+    private final int[] next;
+    private final IntIntHashMap slots;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free;
+    private int size;
+    private IntFunction<Task> resolver;
+
+    public BoundedHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + capacity);
+        }
+        ids = new int[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        slots = new IntIntHashMap(capacity);
+        // свободные ячейки связаны через next
+        for (int i = 0; i < capacity; i++) {
+            next[i] = i + 1 < capacity ? i + 1 : NONE;
+        }
+        Arrays.fill(prev, NONE);
+        free = 0;
+    }
+
+    // Примерный размер в байтах: три массива int и таблица id -> ячейка
+    // (два массива int размером в степень двойки не меньше 2 * capacity) плюс заголовки объектов
+    public static long estimateBytes(int capacity) {
+        long table = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1)) << 1;
+        return 3L * (16 + 4L * capacity) + 2 * (16 + 4 * table) + 96;
+    }
+
+    @Override
+    public void setTaskResolver(IntFunction<Task> resolver) {
+        this.resolver = resolver;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(Task task) {
+        int id = task.getId();
+        int slot = slots.get(id);
+        if (slot != NONE) {
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+            return;
+        }
+        if (free == NONE) {
+            // вытесняем самый давний просмотр
+            slot = head;
+            unlink(slot);
+            slots.remove(ids[slot]);
+            size--;
+        } else {
+            slot = free;
+            free = next[slot];
+        }
+        ids[slot] = id;
+        slots.put(id, slot);
+        linkLast(slot);
+        size++;
+    }
+
+    @Override
+    public void remove(int id) {
+        int slot = slots.remove(id);
+        if (slot == NONE) {
+            return;
+        }
+        unlink(slot);
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    // От давних просмотров к последним; id, которых уже нет в менеджере, пропускаются
+    @Override
+    public List<Task> getHistory() {
+        if (resolver == null) {
+            throw new IllegalStateException("Не задан источник задач для истории");
+        }
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            Task task = resolver.apply(ids[slot]);
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        return history;
+    }
+
+    //с хвоста списка; id, которых уже нет в менеджере, пропускаются
+    @Override
+    public Iterator<Task> recentFirst() {
+        if (resolver == null) {
+            throw new IllegalStateException("Не задан источник задач для истории");
+        }
+        return new Iterator<>() {
+            private int slot = tail;
+            private Task next = advance();
+
+            private Task advance() {
+                while (slot != NONE) {
+                    Task task = resolver.apply(ids[slot]);
+                    slot = prev[slot];
+                    if (task != null) {
+                        return task;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = advance();
+                return task;
+            }
+        };
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        } else {
+            tail = prev[slot];
+        }
+    }
+}
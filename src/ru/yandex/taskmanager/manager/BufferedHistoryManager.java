@@ -0,0 +1,296 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+// Потокобезопасная обёртка над любой историей для многопоточного чтения.
+// Просмотр не трогает саму историю: он получает номер из общего счётчика
+// и кладётся без блокировок в кольцевой буфер своей полосы (полоса выбирается по потоку).
+// Буферы сливаются в историю пачками под одной блокировкой - при getHistory,
+// при заполнении буфера наполовину, из фонового потока или при remove.
+// Просмотры передаются в историю строго по номеру: если поток взял номер, но ещё
+// не опубликовал запись, более поздние просмотры придерживаются до следующего слива.
+// Придержанных не больше, чем мест во всех буферах; при переполнении и при close
+// пропуск перестаёт ждать, и опоздавший просмотр попадает в историю последним.
+public class BufferedHistoryManager implements HistoryManager, AutoCloseable {
+    private static final int BUFFER_SIZE = 128;
+    private static final int MAX_STRIPES = 64;
+    private static final int INDEX_BITS = 24;
+    private static final int PAGE_SIZE = 256;
+
+    private final HistoryManager delegate;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private ScheduledExecutorService maintenance;
+
+    // пачка для слива, защищена drainLock. Первые held записей - придержанные
+    // с прошлого слива, остаток они переносят в held-массивы, после чего массивы меняются местами
+    private long[] batchSeqs;
+    private Task[] batchTasks;
+    private long[] heldSeqs;
+    private Task[] heldTasks;
+    private final long[] batchOrder;
+    private final int maxHeld;
+    private int held;
+    private long nextSeq; // следующий номер, который можно передать в историю
+
+    public BufferedHistoryManager(HistoryManager delegate) {
+        this(delegate, null);
+    }
+
+    //drainInterval != null - буферы дополнительно сливает фоновый поток с этим периодом
+    public BufferedHistoryManager(HistoryManager delegate, Duration drainInterval) {
+        this.delegate = delegate;
+        int stripeCount = Math.min(MAX_STRIPES,
+                Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 4 - 1, 1)) << 1);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = stripeCount - 1;
+        maxHeld = stripeCount * BUFFER_SIZE;
+        int capacity = maxHeld * 2;
+        batchSeqs = new long[capacity];
+        batchTasks = new Task[capacity];
+        heldSeqs = new long[capacity];
+        heldTasks = new Task[capacity];
+        batchOrder = new long[capacity];
+
+        if (drainInterval != null) {
+            maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "history-drain");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(drainInterval.toMillis(), 1);
+            maintenance.scheduleWithFixedDelay(this::tryDrain, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void setTaskResolver(IntFunction<Task> resolver) {
+        drainLock.lock();
+        try {
+            delegate.setTaskResolver(resolver);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        long seq = sequence.getAndIncrement();
+        Stripe stripe = stripes[stripeIndex()];
+        while (true) {
+            long tail = stripe.tail.get();
+            long used = tail - stripe.head;
+            if (used >= BUFFER_SIZE) {
+                // буфер полон: сливаем сами, дожидаясь блокировки
+                drain();
+                continue;
+            }
+            if (stripe.tail.compareAndSet(tail, tail + 1)) {
+                int index = (int) (tail & (BUFFER_SIZE - 1));
+                stripe.seqs[index] = seq;
+                stripe.tasks.setRelease(index, task);
+                if (used + 1 >= BUFFER_SIZE / 2) {
+                    tryDrain();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drainBuffers(false);
+            // придержанный просмотр удалённой задачи не должен вернуть её в историю
+            int kept = 0;
+            for (int i = 0; i < held; i++) {
+                if (batchTasks[i].getId() != id) {
+                    batchSeqs[kept] = batchSeqs[i];
+                    batchTasks[kept++] = batchTasks[i];
+                }
+            }
+            Arrays.fill(batchTasks, kept, held, null);
+            held = kept;
+            delegate.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drainBuffers(false);
+            return delegate.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        drainLock.lock();
+        try {
+            drainBuffers(false);
+            return delegate.getHistory(offset, limit);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Обход страницами по PAGE_SIZE, каждая берётся под блокировкой. Новые просмотры
+    // между страницами сдвигают историю, поэтому задача может встретиться дважды
+    @Override
+    public Iterator<Task> recentFirst() {
+        return new Iterator<>() {
+            private int offset;
+            private List<Task> page = getHistory(0, PAGE_SIZE);
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (position == page.size() && page.size() == PAGE_SIZE) {
+                    offset += PAGE_SIZE;
+                    page = getHistory(offset, PAGE_SIZE);
+                    position = 0;
+                }
+                return position < page.size();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(position++);
+            }
+        };
+    }
+
+    public void drain() {
+        drainLock.lock();
+        try {
+            drainBuffers(false);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void tryDrain() {
+        if (drainLock.tryLock()) {
+            try {
+                drainBuffers(false);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    // Забирает опубликованные просмотры всех полос, сортирует по номеру вместе
+    // с придержанными и передаёт в историю всё до первого неопубликованного номера.
+    // flush - не ждать неопубликованных. Вызывается под drainLock
+    private void drainBuffers(boolean flush) {
+        int count = held;
+        for (Stripe stripe : stripes) {
+            long head = stripe.head;
+            long tail = stripe.tail.get();
+            while (head < tail) {
+                int index = (int) (head & (BUFFER_SIZE - 1));
+                Task task = stripe.tasks.getAcquire(index);
+                if (task == null) {
+                    break; // место занято, но запись ещё не опубликована
+                }
+                batchSeqs[count] = stripe.seqs[index];
+                batchTasks[count] = task;
+                count++;
+                stripe.tasks.setPlain(index, null);
+                head++;
+            }
+            stripe.head = head;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        long minSeq = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minSeq = Math.min(minSeq, batchSeqs[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            batchOrder[i] = (batchSeqs[i] - minSeq) << INDEX_BITS | i;
+        }
+        Arrays.sort(batchOrder, 0, count);
+        int rest = 0;
+        boolean waiting = false;
+        for (int i = 0; i < count; i++) {
+            int position = (int) (batchOrder[i] & ((1 << INDEX_BITS) - 1));
+            long seq = batchSeqs[position];
+            Task task = batchTasks[position];
+            batchTasks[position] = null;
+            // пропуск в номерах: его владелец ещё публикует, дальше всё придерживается
+            waiting |= seq > nextSeq && !flush && count - i <= maxHeld;
+            if (waiting) {
+                heldSeqs[rest] = seq;
+                heldTasks[rest++] = task;
+                continue;
+            }
+            delegate.add(task);
+            nextSeq = Math.max(nextSeq, seq + 1);
+        }
+        held = rest;
+        long[] seqs = batchSeqs;
+        batchSeqs = heldSeqs;
+        heldSeqs = seqs;
+        Task[] tasks = batchTasks;
+        batchTasks = heldTasks;
+        heldTasks = tasks;
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().threadId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+
+    //останавливает фоновый поток и сливает оставшееся
+    @Override
+    public void close() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        drainLock.lock();
+        try {
+            drainBuffers(true);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // кольцевой буфер одной полосы: пишут многие потоки, читает только сливающий
+    private static final class Stripe {
+        final AtomicLong tail = new AtomicLong();
+        volatile long head;
+        final long[] seqs = new long[BUFFER_SIZE];
+        final AtomicReferenceArray<Task> tasks = new AtomicReferenceArray<>(BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,168 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+// Отдельная история просмотров для каждого клиента HttpTaskServer.
+// Клиенты разложены по полосам (shards) со своей блокировкой, внутри полосы -
+// LinkedHashMap в порядке доступа, поэтому клиенты разных полос друг другу не мешают.
+// Каждая история - BoundedHistoryManager фиксированного размера, так что память
+// на клиента известна заранее; число клиентов ограничено бюджетом памяти.
+// Вытесняются давно не обращавшиеся клиенты и самые старые при переполнении полосы.
+public class ClientHistories {
+    private static final int SHARDS = 64;
+    public static final int DEFAULT_CAPACITY = 20;
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final int capacity;
+    private final int clientsPerShard;
+    private final long idleNanos;
+    private final IntFunction<Task> resolver;
+    private final LongSupplier clock;
+
+    public ClientHistories(IntFunction<Task> resolver) {
+        this(resolver, DEFAULT_CAPACITY, DEFAULT_MEMORY_BUDGET, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    //memoryBudget - сколько байт можно занять историями всех клиентов
+    public ClientHistories(IntFunction<Task> resolver, int capacity, long memoryBudget, Duration idleTimeout) {
+        this(resolver, capacity, memoryBudget, idleTimeout, System::nanoTime);
+    }
+
+    //для тестов
+    public ClientHistories(IntFunction<Task> resolver, int capacity, long memoryBudget, Duration idleTimeout,
+                           LongSupplier clock) {
+        this.resolver = resolver;
+        this.capacity = capacity;
+        long perClient = BoundedHistoryManager.estimateBytes(capacity) + 128; // запись карты и ключ
+        long maxClients = Math.max(memoryBudget / perClient, SHARDS);
+        this.clientsPerShard = (int) Math.min(maxClients / SHARDS, Integer.MAX_VALUE);
+        this.idleNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public int maxClients() {
+        return clientsPerShard * SHARDS;
+    }
+
+    private Shard shard(String clientId) {
+        int h = clientId.hashCode() * 0x9E3779B9;
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    public void record(String clientId, Task task) {
+        Shard shard = shard(clientId);
+        long now = clock.getAsLong();
+        shard.lock.lock();
+        try {
+            shard.evictIdle(now);
+            ClientHistory client = shard.clients.get(clientId);
+            if (client == null) {
+                if (shard.clients.size() >= clientsPerShard) {
+                    Iterator<ClientHistory> eldest = shard.clients.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+                client = new ClientHistory(new BoundedHistoryManager(capacity));
+                client.history.setTaskResolver(resolver);
+                shard.clients.put(clientId, client);
+            }
+            client.lastAccess = now;
+            client.history.add(task);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    //история клиента; у неизвестного или вытесненного клиента она пустая
+    public List<Task> getHistory(String clientId) {
+        return getHistory(clientId, 0, Integer.MAX_VALUE, false);
+    }
+
+    //страница истории клиента от последних просмотров к давним
+    public List<Task> getHistory(String clientId, int offset, int limit) {
+        return getHistory(clientId, offset, limit, true);
+    }
+
+    private List<Task> getHistory(String clientId, int offset, int limit, boolean paged) {
+        Shard shard = shard(clientId);
+        long now = clock.getAsLong();
+        shard.lock.lock();
+        try {
+            shard.evictIdle(now);
+            ClientHistory client = shard.clients.get(clientId);
+            if (client == null) {
+                return new ArrayList<>();
+            }
+            client.lastAccess = now;
+            return paged ? client.history.getHistory(offset, limit) : client.history.getHistory();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.clients.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    //удаляет истории всех неактивных клиентов
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.evictIdle(now);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, ClientHistory> clients = new LinkedHashMap<>(16, 0.75f, true);
+
+        // в порядке доступа самые давние клиенты идут первыми
+        void evictIdle(long now) {
+            Iterator<Map.Entry<String, ClientHistory>> iterator = clients.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().getValue().lastAccess < idleNanos) {
+                    return;
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class ClientHistory {
+        final BoundedHistoryManager history;
+        long lastAccess;
+
+        ClientHistory(BoundedHistoryManager history) {
+            this.history = history;
+        }
+    }
+}
@@ -0,0 +1,656 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+// Менеджер для многопоточного доступа (HttpTaskServer с пулом потоков).
+// Чтение задач по id идёт из ConcurrentHashMap без блокировок,
+// счётчики и статус эпика меняются под блокировкой его полосы (striped lock),
+// расписание защищено read-write блокировкой, история - BufferedHistoryManager.
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int EPIC_LOCK_STRIPES = 64;
+
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Integer, EpicAggregate> epicAggregates = new ConcurrentHashMap<>();
+    private final ModificationVersions versions = new ModificationVersions();
+    // id по возрастанию для постраничной выдачи; обновляются после карт,
+    // поэтому страница может не увидеть только что созданную задачу
+    private final NavigableSet<Integer> taskIds = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Integer> subtaskIds = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Integer> epicIds = new ConcurrentSkipListSet<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private final TimeIntervalIndex prioritizedTasks = new TimeIntervalIndex();
+    private final ReadWriteLock scheduleLock = new ReentrantReadWriteLock();
+    private final Lock[] epicLocks = new Lock[EPIC_LOCK_STRIPES];
+
+    private final HistoryManager historyManager;
+    private final AccessFrequencyTracker accessFrequency = new AccessFrequencyTracker();
+
+    //непотокобезопасная история оборачивается в BufferedHistoryManager
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager instanceof BufferedHistoryManager
+                ? historyManager
+                : new BufferedHistoryManager(historyManager);
+        for (int i = 0; i < epicLocks.length; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+        this.historyManager.setTaskResolver(resolver(tasks, subtasks, epics));
+    }
+
+    // резолвер истории держит карты, а не сам менеджер: this не уходит наружу из конструктора
+    private static IntFunction<Task> resolver(Map<Integer, Task> tasks, Map<Integer, Subtask> subtasks,
+                                              Map<Integer, Epic> epics) {
+        return id -> find(tasks, subtasks, epics, id);
+    }
+
+    private int generateId() {
+        return nextId.getAndIncrement();
+    }
+
+    private void reserveId(int id) {
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public List<Task> getHotTasks(int limit) {
+        List<Task> hot = new ArrayList<>();
+        for (int id : accessFrequency.top(limit)) {
+            Task task = findById(id);
+            if (task != null) {
+                hot.add(task);
+            }
+        }
+        return hot;
+    }
+
+    //задача любого типа по id, без записи в историю
+    @Override
+    public Task findById(int id) {
+        return find(tasks, subtasks, epics, id);
+    }
+
+    private static Task find(Map<Integer, Task> tasks, Map<Integer, Subtask> subtasks,
+                             Map<Integer, Epic> epics, int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        if (task == null) {
+            task = epics.get(id);
+        }
+        return task;
+    }
+
+    private Lock epicLock(int epicId) {
+        return epicLocks[Math.floorMod(epicId, EPIC_LOCK_STRIPES)];
+    }
+
+    // Выполняет action под блокировками эпиков, между которыми может перейти подзадача:
+    // эпика сохранённой версии (её action получает аргументом) и эпика новой.
+    // Полосы берутся по возрастанию номера, чтобы встречные переносы не взаимоблокировались;
+    // если сохранённую версию успели заменить до захвата, попытка повторяется
+    private <R> R withSubtaskEpics(Subtask subtask, Function<Subtask, R> action) {
+        while (true) {
+            Subtask stored = subtasks.get(subtask.getId());
+            int storedStripe = Math.floorMod(stored != null ? stored.getEpicId() : subtask.getEpicId(),
+                    EPIC_LOCK_STRIPES);
+            int stripe = Math.floorMod(subtask.getEpicId(), EPIC_LOCK_STRIPES);
+            Lock first = epicLocks[Math.min(storedStripe, stripe)];
+            Lock second = epicLocks[Math.max(storedStripe, stripe)];
+            first.lock();
+            second.lock(); // та же полоса захватывается повторно, ReentrantLock это допускает
+            try {
+                if (subtasks.get(subtask.getId()) == stored) {
+                    return action.apply(stored);
+                }
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    // Карты задач, множества id для страниц и расписание меняются вместе под блокировкой
+    // записи расписания. Иначе встречные создание и удаление одного id могут пройти как
+    // put -> remove -> снятие с расписания -> постановка, и в расписании останется
+    // интервал удалённой задачи. Чтение по id по-прежнему идёт из карты без блокировок
+    private <T extends Task> T store(Map<Integer, T> map, NavigableSet<Integer> ids, T task) {
+        scheduleLock.writeLock().lock();
+        try {
+            T oldTask = map.put(task.getId(), task);
+            ids.add(task.getId());
+            if (oldTask != null) {
+                prioritizedTasks.remove(oldTask);
+            }
+            prioritizedTasks.add(task);
+            return oldTask;
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    private <T extends Task> List<T> unstore(Map<Integer, T> map, NavigableSet<Integer> ids, int... removedIds) {
+        scheduleLock.writeLock().lock();
+        try {
+            List<T> removed = new ArrayList<>(removedIds.length);
+            for (int id : removedIds) {
+                T task = map.remove(id);
+                if (task != null) {
+                    ids.remove(id);
+                    prioritizedTasks.remove(task);
+                    removed.add(task);
+                }
+            }
+            return removed;
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    private <T extends Task> List<T> unstoreAll(Map<Integer, T> map, NavigableSet<Integer> ids) {
+        scheduleLock.writeLock().lock();
+        try {
+            List<T> removed = new ArrayList<>(map.values());
+            map.clear();
+            ids.clear();
+            removed.forEach(prioritizedTasks::remove);
+            return removed;
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasTimeOverlap(Task task) {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.hasOverlap(task);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    // Проверка и вставка под блокировкой записи расписания: два параллельных запроса
+    // не сохранят пересекающиеся задачи. Для подзадачи блокировка эпика берётся первой,
+    // в том же порядке, что и в updateSubtask
+    @Override
+    public boolean saveTaskIfNoOverlap(Task task) {
+        scheduleLock.writeLock().lock();
+        try {
+            if (prioritizedTasks.hasOverlap(task)) {
+                return false;
+            }
+            if (task.getId() == 0) {
+                createTask(task);
+            } else {
+                updateTask(task);
+            }
+            return true;
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean saveSubtaskIfNoOverlap(Subtask subtask) {
+        return withSubtaskEpics(subtask, stored -> {
+            scheduleLock.writeLock().lock();
+            try {
+                if (prioritizedTasks.hasOverlap(subtask)) {
+                    return false;
+                }
+                if (subtask.getId() == 0) {
+                    createSubtask(subtask);
+                } else {
+                    updateSubtask(subtask);
+                }
+                return true;
+            } finally {
+                scheduleLock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.toList();
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.findOverlapping(from, to);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksStartingAfter(LocalDateTime time, int limit) {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.findStartingFrom(time, limit);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LocalDateTime findEarliestSlot(LocalDateTime from, Duration duration) {
+        scheduleLock.readLock().lock();
+        try {
+            return prioritizedTasks.findEarliestGap(from, duration);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    // Поиск места и вставка в расписание - одна операция под блокировкой записи,
+    // поэтому параллельные планировщики не займут один промежуток.
+    // Для подзадачи блокировки эпиков берутся до неё, как в saveSubtaskIfNoOverlap.
+    // Уже сохранённая задача перепланируется на месте, с прежним id
+    @Override
+    public List<Task> autoSchedule(List<? extends Task> batch, LocalDateTime from) {
+        batch.forEach(InMemoryTaskManager::checkSchedulable);
+        List<Task> scheduled = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            if (task instanceof Subtask subtask) {
+                if (!subtasks.containsKey(subtask.getId())) {
+                    subtask.setId(generateId());
+                }
+                // повторная привязка к тому же эпику заменяет вклад подзадачи, а не добавляет второй
+                withSubtaskEpics(subtask, current -> {
+                    place(subtasks, subtaskIds, subtask, from);
+                    if (current != null && current.getEpicId() != subtask.getEpicId()) {
+                        detachFromEpic(current);
+                    }
+                    attachToEpic(subtask);
+                    versions.changed(TypeTask.SUBTASK, subtask.getId());
+                    return null;
+                });
+            } else {
+                if (task.getId() == 0) {
+                    task.setId(generateId());
+                } else {
+                    reserveId(task.getId()); // как в createTask
+                }
+                place(tasks, taskIds, task, from);
+                versions.changed(TypeTask.TASK, task.getId());
+            }
+            scheduled.add(task);
+        }
+        return scheduled;
+    }
+
+    //поиск места без прежней версии задачи и сохранение - под одной блокировкой записи
+    private <T extends Task> void place(Map<Integer, T> map, NavigableSet<Integer> ids, T task, LocalDateTime from) {
+        scheduleLock.writeLock().lock();
+        try {
+            T stored = map.get(task.getId());
+            if (stored != null) {
+                prioritizedTasks.remove(stored);
+            }
+            task.setStartTime(prioritizedTasks.findEarliestGap(from, task.getDuration()));
+            map.put(task.getId(), task);
+            ids.add(task.getId());
+            prioritizedTasks.add(task);
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    //история: просмотры пишутся в буферы без общей блокировки
+    private void recordView(Task task) {
+        historyManager.add(task);
+        accessFrequency.record(task.getId());
+    }
+
+    private void forget(int id) {
+        historyManager.remove(id);
+        accessFrequency.remove(id);
+    }
+
+    private void forgetAll(Iterable<? extends Task> removed) {
+        removed.forEach(task -> forget(task.getId()));
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.global();
+    }
+
+    @Override
+    public long getVersion(TypeTask type) {
+        return versions.collection(type);
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return versions.entity(id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return historyManager.getHistory(offset, limit);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(taskIds, tasks, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return page(subtaskIds, subtasks, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(epicIds, epics, afterId, limit);
+    }
+
+    //удалённые между чтением индекса и карты задачи пропускаются
+    private static <T extends Task> List<T> page(NavigableSet<Integer> ids, Map<Integer, T> items,
+                                                 int afterId, int limit) {
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Integer id : ids.tailSet(afterId, false)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            T item = items.get(id);
+            if (item != null) {
+                page.add(item);
+            }
+        }
+        return page;
+    }
+
+    // Методы для Task
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        List<Task> removed = unstoreAll(tasks, taskIds);
+        forgetAll(removed);
+        versions.removed(TypeTask.TASK, removed);
+    }
+
+    @Override
+    public Task getTaskId(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            recordView(task);
+        }
+        return task;
+    }
+
+    @Override
+    public void createTask(Task task) {
+        if (task.getId() == 0) {
+            task.setId(generateId());
+        } else {
+            reserveId(task.getId()); // явный id не должен выдаться следующей задаче
+        }
+        store(tasks, taskIds, task);
+        versions.changed(TypeTask.TASK, task.getId());
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        store(tasks, taskIds, task);
+        versions.changed(TypeTask.TASK, task.getId());
+    }
+
+    @Override
+    public void deleteTaskId(int id) {
+        if (!unstore(tasks, taskIds, id).isEmpty()) {
+            versions.removed(TypeTask.TASK, id);
+        }
+    }
+
+    // Методы для Subtask
+    @Override
+    public List<Subtask> getAllSubTasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public void deleteAllSubTask() {
+        List<Subtask> removed = unstoreAll(subtasks, subtaskIds);
+        forgetAll(removed);
+        versions.removed(TypeTask.SUBTASK, removed);
+        for (Epic epic : epics.values()) {
+            Lock lock = epicLock(epic.getId());
+            lock.lock();
+            try {
+                epic.clearSubtasks();
+                EpicAggregate aggregate = epicAggregates.get(epic.getId());
+                if (aggregate != null) {
+                    aggregate.clear();
+                    aggregate.applyTo(epic);
+                    versions.changed(TypeTask.EPIC, epic.getId());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Subtask getSubTaskId(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            recordView(subtask);
+        }
+        return subtask;
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        subtask.setId(generateId());
+        withSubtaskEpics(subtask, stored -> {
+            store(subtasks, subtaskIds, subtask);
+            attachToEpic(subtask);
+            return null;
+        });
+        versions.changed(TypeTask.SUBTASK, subtask.getId());
+    }
+
+    //вызывается под блокировкой эпика подзадачи
+    private void attachToEpic(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        EpicAggregate aggregate = epicAggregates.get(subtask.getEpicId());
+        if (epic != null && aggregate != null) {
+            epic.addSubtask(subtask.getId());
+            aggregate.add(subtask);
+            aggregate.applyTo(epic);
+            versions.changed(TypeTask.EPIC, epic.getId());
+        }
+    }
+
+    //вызывается под блокировкой эпика подзадачи
+    private void detachFromEpic(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        EpicAggregate aggregate = epicAggregates.get(subtask.getEpicId());
+        if (epic != null && aggregate != null) {
+            epic.removeSubtask(subtask.getId());
+            aggregate.remove(subtask.getId());
+            aggregate.applyTo(epic);
+            versions.changed(TypeTask.EPIC, epic.getId());
+        }
+    }
+
+    //при смене epicId подзадача переходит из прежнего эпика в новый
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        withSubtaskEpics(subtask, stored -> {
+            if (stored == null) {
+                return null;
+            }
+            store(subtasks, subtaskIds, subtask);
+            if (stored.getEpicId() != subtask.getEpicId()) {
+                detachFromEpic(stored);
+            }
+            attachToEpic(subtask);
+            versions.changed(TypeTask.SUBTASK, subtask.getId());
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteSubtaskId(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            return;
+        }
+        // удаление - под блокировкой эпика, как и замена в updateSubtask
+        Subtask removed = withSubtaskEpics(subtask, stored -> {
+            if (stored != null) {
+                unstore(subtasks, subtaskIds, id);
+                detachFromEpic(stored);
+            }
+            return stored;
+        });
+        if (removed == null) {
+            return;
+        }
+        forget(id);
+        versions.removed(TypeTask.SUBTASK, id);
+    }
+
+    // Методы для Epic
+    @Override
+    public List<Epic> getAllEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        List<Epic> removedEpics = new ArrayList<>(epics.values());
+        epics.clear();
+        epicIds.clear();
+        epicAggregates.clear();
+        List<Subtask> removed = unstoreAll(subtasks, subtaskIds);
+        forgetAll(removed);
+        forgetAll(removedEpics);
+        versions.removed(TypeTask.SUBTASK, removed);
+        versions.removed(TypeTask.EPIC, removedEpics);
+    }
+
+    @Override
+    public Epic getEpicId(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            recordView(epic);
+        }
+        return epic;
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        epic.setId(generateId());
+        epicAggregates.put(epic.getId(), new EpicAggregate());
+        epics.put(epic.getId(), epic);
+        epicIds.add(epic.getId());
+        versions.changed(TypeTask.EPIC, epic.getId());
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        Lock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            EpicAggregate aggregate = epicAggregates.get(epic.getId());
+            Epic oldEpic = epics.get(epic.getId());
+            if (oldEpic == null) {
+                return;
+            }
+            InMemoryTaskManager.keepSubtasks(oldEpic, epic);
+            if (epics.replace(epic.getId(), epic) != null && aggregate != null) {
+                if (aggregate.isEmpty()) {
+                    epic.setStatus(TaskStatus.NEW);
+                } else {
+                    aggregate.applyTo(epic);
+                }
+                versions.changed(TypeTask.EPIC, epic.getId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpicId(int id) {
+        Lock lock = epicLock(id);
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic != null) {
+                epicIds.remove(id);
+                epicAggregates.remove(id);
+                List<Subtask> removed = unstore(subtasks, subtaskIds, epic.subtaskIdsSnapshot());
+                forgetAll(removed);
+                versions.removed(TypeTask.SUBTASK, removed);
+                versions.removed(TypeTask.EPIC, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        forget(id);
+    }
+
+    // Дополнительные методы
+    @Override
+    public List<Subtask> getSubtasksEpic(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+        // чтение не ждёт блокировку эпика: копия id согласована, удалённые к этому
+        // моменту подзадачи пропускаются
+        int[] ids = epic.subtaskIdsSnapshot();
+        List<Subtask> result = new ArrayList<>(ids.length);
+        for (int subtaskId : ids) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.taskmanager.manager;
+
+import java.time.Duration;
+
+// Когда записи журнала, записанные в фоне, сбрасываются на диск (fsync)
+public record DurabilityPolicy(Type type, Duration fsyncInterval) {
+    public enum Type {
+        SYNC,       // каждая запись на диске до возврата из метода, fsync общий для пачки
+        PERIODIC,   // fsync не реже чем раз в fsyncInterval
+        OS_BUFFERED // только запись в буфер ОС
+    }
+
+    public static DurabilityPolicy sync() {
+        return new DurabilityPolicy(Type.SYNC, Duration.ZERO);
+    }
+
+    public static DurabilityPolicy periodic(Duration fsyncInterval) {
+        return new DurabilityPolicy(Type.PERIODIC, fsyncInterval);
+    }
+
+    public static DurabilityPolicy osBuffered() {
+        return new DurabilityPolicy(Type.OS_BUFFERED, Duration.ZERO);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.TaskStatus;
+import ru.yandex.taskmanager.util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Счётчики подзадач эпика: количество по статусам, суммарная длительность,
+// мультимножества времён начала и окончания. Добавление и удаление подзадачи -
+// O(log k), статус и границы эпика считаются без обхода подзадач.
+public class EpicAggregate {
+    // вклад подзадачи запоминается, чтобы корректно вычесть его,
+    // даже если объект подзадачи изменили снаружи
+    private record Contribution(TaskStatus status, Duration duration,
+                                LocalDateTime start, LocalDateTime end) {
+    }
+
+    private final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final NavigableMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Integer> ends = new TreeMap<>();
+    private Duration totalDuration = Duration.ZERO;
+
+    public void add(Subtask subtask) {
+        remove(subtask.getId());
+        Contribution contribution = new Contribution(subtask.getStatus(), subtask.getDuration(),
+                subtask.getStartTime(), subtask.getEndTime());
+        contributions.put(subtask.getId(), contribution);
+
+        if (contribution.status() != null) {
+            statusCounts[contribution.status().ordinal()]++;
+        }
+        if (contribution.duration() != null) {
+            totalDuration = totalDuration.plus(contribution.duration());
+        }
+        increment(starts, contribution.start());
+        increment(ends, contribution.end());
+    }
+
+    public void remove(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+
+        if (contribution.status() != null) {
+            statusCounts[contribution.status().ordinal()]--;
+        }
+        if (contribution.duration() != null) {
+            totalDuration = totalDuration.minus(contribution.duration());
+        }
+        decrement(starts, contribution.start());
+        decrement(ends, contribution.end());
+    }
+
+    public void clear() {
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        starts.clear();
+        ends.clear();
+        totalDuration = Duration.ZERO;
+    }
+
+    public boolean isEmpty() {
+        return contributions.isEmpty();
+    }
+
+    public TaskStatus getStatus() {
+        int newCount = statusCounts[TaskStatus.NEW.ordinal()];
+        int doneCount = statusCounts[TaskStatus.DONE.ordinal()];
+        int total = newCount + doneCount + statusCounts[TaskStatus.IN_PROGRESS.ordinal()];
+
+        if (total == 0 || newCount == total) {
+            return TaskStatus.NEW;
+        }
+        if (doneCount == total) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    //переносит статус, длительность и границы по времени в эпик
+    public void applyTo(Epic epic) {
+        epic.setStatus(getStatus());
+        if (contributions.isEmpty()) {
+            epic.setDuration(Duration.ZERO);
+            epic.setStartTime(null);
+            epic.setEndTime(null);
+            return;
+        }
+        epic.setDuration(totalDuration);
+        epic.setStartTime(starts.isEmpty() ? null : starts.firstKey());
+        epic.setEndTime(ends.isEmpty() ? null : ends.lastKey());
+    }
+
+    private static void increment(NavigableMap<LocalDateTime, Integer> counts, LocalDateTime time) {
+        if (time != null) {
+            counts.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(NavigableMap<LocalDateTime, Integer> counts, LocalDateTime time) {
+        if (time != null) {
+            counts.computeIfPresent(time, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
@@ -4,235 +4,341 @@ package ru.yandex.taskmanager.manager;
 import ru.yandex.taskmanager.model.Epic;
 import ru.yandex.taskmanager.model.Subtask;
 import ru.yandex.taskmanager.model.Task;
-import ru.yandex.taskmanager.model.TaskStatus;
 
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager {
     private Path file = Paths.get("tasks.csv");
-    private static final String CSV_HEADER = "id,type,name,status,description,epic,duration,startTime,endTime\n";
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    private static final DurabilityPolicy DEFAULT_DURABILITY = DurabilityPolicy.periodic(Duration.ofMillis(100));
+
+    private final PersistenceMode mode;
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private final long compactionThreshold;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private ExecutorService compactor;
+    private Future<?> compaction; // последняя запись снимка в фоне
+    private HistoryLog historyLog;
 
 
     public FileBackedTaskManager(HistoryManager historyManager, Path file) {
-        super(historyManager);
-        this.file = file;
+        this(historyManager, file, PersistenceMode.SNAPSHOT);
     }
 
+    public FileBackedTaskManager(HistoryManager historyManager, Path file, SnapshotFormat format) {
+        this(historyManager, file, PersistenceMode.SNAPSHOT, DEFAULT_COMPACTION_THRESHOLD, DEFAULT_DURABILITY, format);
+    }
 
-    public void save() {
-        try (FileWriter writer = new FileWriter(file.toFile())) {
-            writer.write(CSV_HEADER);
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task) + "\n");
-            }
-            for (Subtask subtask : getAllSubTasks()) {
-                writer.write(toString(subtask) + "\n");
-            }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic) + "\n");
-            }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка сохранения данных в файл", e);
-        }
+    public FileBackedTaskManager(HistoryManager historyManager, Path file, PersistenceMode mode) {
+        this(historyManager, file, mode, DEFAULT_COMPACTION_THRESHOLD);
     }
 
-    private String toString(Task task) {
+    //compactionThreshold - размер журнала в байтах, после которого он сжимается в снимок
+    public FileBackedTaskManager(HistoryManager historyManager, Path file, PersistenceMode mode,
+                                 long compactionThreshold) {
+        this(historyManager, file, mode, compactionThreshold, DEFAULT_DURABILITY);
+    }
 
-        if (task == null || task.getStatus() == null) {
-            return "";
-        }
+    //durability учитывается только в режиме WRITE_BEHIND
+    public FileBackedTaskManager(HistoryManager historyManager, Path file, PersistenceMode mode,
+                                 long compactionThreshold, DurabilityPolicy durability) {
+        this(historyManager, file, mode, compactionThreshold, durability, SnapshotFormat.CSV);
+    }
 
+    //format - в каком виде пишется снимок; читается снимок любого формата
+    public FileBackedTaskManager(HistoryManager historyManager, Path file, PersistenceMode mode,
+                                 long compactionThreshold, DurabilityPolicy durability, SnapshotFormat format) {
+        super(historyManager);
+        this.file = file;
+        this.mode = mode;
+        this.format = format;
+        this.compactionThreshold = compactionThreshold;
+        Path journalFile = file.resolveSibling(file.getFileName() + ".journal");
+        this.journal = switch (mode) {
+            case SNAPSHOT -> null;
+            case JOURNAL -> new TaskJournal(journalFile);
+            case WRITE_BEHIND -> new TaskJournal(journalFile, durability);
+        };
+    }
 
-        String type = getTaskType(task);
-        String durationStr = task.getDuration() != null ? String.valueOf(task.getDuration().toSeconds()) : "";
-        String startTimeStr = task.getStartTime() != null ? task.getStartTime().format(DATE_TIME_FORMATTER) : "";
-        String endTimeStr = "";
 
+    // Просмотры дописываются в журнал <file>.history и восстанавливаются при загрузке.
+    // Вызывается до loadFromFile; по умолчанию просмотры пишутся фоновым потоком
+    public void persistHistory() {
+        persistHistory(DurabilityPolicy.osBuffered());
+    }
 
-        String result = task.getId() + "," +
-                type + "," +
-                task.getName() + "," +
-                task.getStatus().name() + "," +
-                task.getDescription();
+    //durability == null - синхронная запись при каждом просмотре
+    public void persistHistory(DurabilityPolicy durability) {
+        historyLog = new HistoryLog(file.resolveSibling(file.getFileName() + ".history"), durability);
+    }
 
-        if (task instanceof Epic epic) {
-            endTimeStr = epic.getEndTime() != null ? epic.getEndTime().toString() : "";
+    private <T extends Task> T viewed(T task) {
+        if (task != null && historyLog != null) {
+            historyLog.viewed(task.getId());
+            if (historyLog.needsCompaction()) {
+                historyLog.compact(historyIds());
+            }
         }
+        return task;
+    }
 
-        if (task instanceof Subtask) {
-            //Subtask subtask = (Subtask) task;
-            result += "," + ((Subtask) task).getEpicId(); //запись epicid в файл
-        } else {
-            result += ",";
-        }
+    private int[] historyIds() {
+        return getHistory().stream().mapToInt(Task::getId).toArray();
+    }
 
-        return result;
+    public void save() {
+        try {
+            SnapshotFiles.writeAtomically(file, snapshotTasks(), format);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения данных в файл", e);
+        }
     }
 
-    private String getTaskType(Task task) {
-        if (task instanceof Subtask) return "SUBTASK";
-        if (task instanceof Epic) return "EPIC";
-        return "TASK";
+    private List<Task> snapshotTasks() {
+        List<Task> all = new ArrayList<>(getAllTasks());
+        all.addAll(getAllSubTasks());
+        all.addAll(getAllEpics());
+        return all;
     }
 
-    private static Task fromString(String value) {
-        String[] parts = value.split(",");
-        if (parts.length < 5) {
-            throw new ManagerSaveException("Недостаточно данных в строке: " + value);
+    //сохранение изменения: весь файл целиком или одна запись журнала
+    private void persist(String record) {
+        if (mode == PersistenceMode.SNAPSHOT) {
+            save();
+            return;
+        }
+        journal.append(record);
+        if (journal.size() > compactionThreshold) {
+            compactJournal();
         }
+    }
 
+    // Снимок формируется в текущем потоке (чтобы не читать коллекции из другого),
+    // запись на диск и удаление старого журнала - в фоне
+    private void compactJournal() {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        try {
+            SnapshotFiles.write(snapshot, snapshotTasks(), format);
+            journal.rotate();
+        } catch (IOException | RuntimeException e) {
+            compacting.set(false);
+            System.err.println("Ошибка сжатия журнала: " + e.getMessage());
+            return;
+        }
 
-        TypeTask type = TypeTask.valueOf(parts[1]);
-        int id = Integer.parseInt(parts[0]);
-        String name = parts[2];
-        TaskStatus status = TaskStatus.valueOf(parts[3]);
-        String description = parts[4];
-
-
-        Duration duration = parseDuration(parts.length > 6 ? parts[6] : null);
-        LocalDateTime startTime = parseDateTime(parts.length > 7 ? parts[7] : null);
-        LocalDateTime endTime = type == TypeTask.EPIC && parts.length > 8
-                ? parseDateTime(parts[8])
-                : null;
-
-        switch (type) {
-            case TASK:
-                return new Task(id, name, description, status, duration, startTime);
-            case SUBTASK:
-                int epicId = Integer.parseInt(parts[5]);
-                return new Subtask(id, name, description, status, epicId, duration, startTime);
-            case EPIC:
-                return new Epic(id, name, description, status, duration, startTime, endTime);
-            default:
-                throw new ManagerSaveException("Неизвестный тип задачи: " + type);
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        compaction = compactor.submit(() -> {
+            try {
+                SnapshotFiles.writeAtomically(file, snapshot.toByteArray());
+                journal.deleteRotated();
+            } catch (IOException e) {
+                System.err.println("Ошибка записи снимка: " + e.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        });
     }
 
-    //методы для парсинга
-    private static Duration parseDuration(String durationStr) {
-        if (durationStr == null || durationStr.isEmpty()) {
-            return null;
+    //дожидается записи снимка, начатой последним сжатием журнала
+    public void awaitCompaction() {
+        if (compaction == null) {
+            return;
         }
         try {
-            return Duration.ofMinutes(Long.parseLong(durationStr));
-        } catch (NumberFormatException e) {
-            System.err.println("Неверный формат продолжительности: " + durationStr);
-            return null;
+            compaction.get();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Ошибка сжатия журнала", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private static LocalDateTime parseDateTime(String dateTimeStr) {
-        if (dateTimeStr == null || dateTimeStr.isEmpty()) {
-            return null;
+    //все изменения переданы ОС (для WRITE_BEHIND - дописаны фоновым потоком)
+    public void flush() {
+        if (journal != null) {
+            journal.flush();
         }
-        try {
-            return LocalDateTime.parse(dateTimeStr);
-        } catch (DateTimeParseException e) {
-            System.err.println("Неверный формат даты/времени: " + dateTimeStr);
-            return null;
+        if (historyLog != null) {
+            historyLog.flush();
         }
     }
 
-    public void loadFromFile() {
-        if (!Files.exists(file)) {
-            return;
+    //все изменения сброшены на диск
+    public void awaitDurable() {
+        if (journal != null) {
+            journal.awaitDurable();
         }
+    }
 
+    //дожидается фонового сжатия и закрывает журнал
+    public void close() {
         try {
-            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
-            if (lines.isEmpty()) {
+            if (historyLog != null) {
+                historyLog.close();
+            }
+            if (journal == null) {
                 return;
             }
+            if (compactor != null) {
+                compactor.shutdown();
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            journal.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            // загружаем все эпики
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
+    private String toString(Task task) {
+        return TaskCsvFormat.format(task);
+    }
 
-                try {
-                    Task task = fromString(line);
-                    if (task instanceof Epic) {
-                        createEpic((Epic) task);
-                    }
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Ошибка в строке " + (i + 1) + ": " + e.getMessage());
-                }
-            }
+    private static Task fromString(String value) {
+        return TaskCsvFormat.parse(value);
+    }
 
-            // загружаем подзадачи и обычные задачи
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
+    public void loadFromFile() {
+        load(null);
+    }
 
-                try {
-                    Task task = fromString(line);
-                    if (task == null) continue;
+    //снимок разбирается кусками параллельно на pool, результат тот же, что у loadFromFile
+    public void loadFromFileParallel(ForkJoinPool pool) {
+        load(pool);
+    }
 
-                    if (task instanceof Subtask) {
-                        createSubtask((Subtask) task);
-                    } else if (!(task instanceof Epic)) {  // Обычные задачи
-                        createTask(task);
-                    }
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Ошибка в строке " + (i + 1) + ": " + e.getMessage());
-                }
+    public void loadFromFileParallel() {
+        load(ForkJoinPool.commonPool());
+    }
+
+    //последний снимок с сохранёнными id, затем записи журнала поверх него
+    private void load(ForkJoinPool pool) {
+        if (Files.exists(file)) {
+            if (pool == null || isBinarySnapshot()) {
+                readSnapshot();
+            } else {
+                readSnapshotParallel(pool);
             }
-        } catch (IOException e) {
-            System.err.println("Ошибка загрузки файла: " + e.getMessage());
+        }
+        if (journal != null) {
+            journal.replay(this::applyRecord);
+        }
+        if (historyLog != null) {
+            loadHistory();
         }
     }
 
-    private void updateEpicFields(int epicId) {
-        Epic epic = getEpicId(epicId);
-        if (epic == null) return;
-
-        List<Subtask> subtasks = getSubtasksEpic(epicId);
-
+    //журнал даёт историю от последних просмотров к давним, в менеджер она кладётся в обратном порядке
+    private void loadHistory() {
+        int[] recent = historyLog.recent(historyCapacity());
+        int[] ids = new int[recent.length];
+        for (int i = 0; i < recent.length; i++) {
+            ids[i] = recent[recent.length - 1 - i];
+        }
+        restoreHistory(ids);
+    }
 
-        updateEpicStatus(epicId);
+    // Снимок читается потоково за один проход, записи сразу кладутся в менеджер;
+    // связи эпиков строятся в конце, ошибочные записи пропускаются
+    private void readSnapshot() {
+        try {
+            SnapshotFiles.read(file, this::bulkPut);
+        } catch (IOException e) {
+            System.err.println("Ошибка загрузки файла: " + e.getMessage());
+        }
+        finishBulkRestore();
+    }
 
+    //двоичный снимок читается последовательно: он и так разбирается быстрее CSV
+    private boolean isBinarySnapshot() {
+        try {
+            return BinarySnapshot.isBinary(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
-        if (subtasks.isEmpty()) {
-            epic.setDuration(Duration.ZERO);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            return;
+    private void readSnapshotParallel(ForkJoinPool pool) {
+        try {
+            new ParallelSnapshotReader(file, pool).read(this::bulkPut);
+        } catch (IOException e) {
+            System.err.println("Ошибка загрузки файла: " + e.getMessage());
         }
+        finishBulkRestore();
+    }
 
+    private void restore(Task task) {
+        if (task instanceof Epic epic) {
+            restoreEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            restoreSubtask(subtask);
+        } else {
+            restoreTask(task);
+        }
+    }
 
-        Duration totalDuration = Duration.ZERO;
-        for (Subtask subtask : subtasks) {
-            if (subtask.getDuration() != null) {
-                totalDuration = totalDuration.plus(subtask.getDuration());
+    //записи журнала: PUT,<строка задачи> | DEL,<тип>,<id> | CLEAR,<тип>
+    private void applyRecord(String record) {
+        try {
+            String[] parts = record.split(",", 3);
+            switch (parts[0]) {
+                case "PUT" -> restore(fromString(record.substring("PUT,".length())));
+                case "DEL" -> {
+                    int id = Integer.parseInt(parts[2]);
+                    switch (TypeTask.valueOf(parts[1])) {
+                        case TASK -> super.deleteTaskId(id);
+                        case SUBTASK -> super.deleteSubtaskId(id);
+                        case EPIC -> super.deleteEpicId(id);
+                    }
+                }
+                case "CLEAR" -> {
+                    switch (TypeTask.valueOf(parts[1])) {
+                        case TASK -> super.deleteAllTasks();
+                        case SUBTASK -> super.deleteAllSubTask();
+                        case EPIC -> super.deleteAllEpics();
+                    }
+                }
+                default -> System.err.println("Неизвестная запись журнала: " + record);
             }
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка в записи журнала: " + record + ": " + e.getMessage());
         }
-        epic.setDuration(totalDuration);
-
-        LocalDateTime earliestStart = subtasks.stream()
-                .map(Subtask::getStartTime)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-        epic.setStartTime(earliestStart);
+    }
 
-        LocalDateTime latestEnd = subtasks.stream()
-                .map(Subtask::getEndTime)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-        epic.setEndTime(latestEnd);
+    private static String deleted(TypeTask type, int id) {
+        return "DEL," + type + "," + id;
     }
 
+    private static String cleared(TypeTask type) {
+        return "CLEAR," + type;
+    }
 
     @Override
     public List<Task> getAllTasks() {
@@ -243,30 +349,30 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     @Override
     public void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        persist(cleared(TypeTask.TASK));
     }
 
     @Override
     public Task getTaskId(int id) {
-        return super.getTaskId(id);
+        return viewed(super.getTaskId(id));
     }
 
     @Override
     public void createTask(Task task) {
         super.createTask(task);
-        save();
+        persist("PUT," + toString(task));
     }
 
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        persist("PUT," + toString(task));
     }
 
     @Override
     public void deleteTaskId(int id) {
         super.deleteTaskId(id);
-        save();
+        persist(deleted(TypeTask.TASK, id));
     }
 
     @Override
@@ -277,37 +383,30 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     @Override
     public void deleteAllSubTask() {
         super.deleteAllSubTask();
-        save();
+        persist(cleared(TypeTask.SUBTASK));
     }
 
     @Override
     public Subtask getSubTaskId(int id) {
-        return super.getSubTaskId(id);
+        return viewed(super.getSubTaskId(id));
     }
 
     @Override
     public void createSubtask(Subtask subtask) {
         super.createSubtask(subtask);
-        updateEpicFields(subtask.getEpicId());
-        save();
+        persist("PUT," + toString(subtask));
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        updateEpicFields(subtask.getEpicId());
-        save();
+        persist("PUT," + toString(subtask));
     }
 
     @Override
     public void deleteSubtaskId(int id) {
-        Subtask subtask = getSubTaskId(id);
-        if (subtask != null) {
-            int epicId = subtask.getEpicId();
-            super.deleteSubtaskId(id);
-            updateEpicFields(epicId);
-            save();
-        }
+        super.deleteSubtaskId(id);
+        persist(deleted(TypeTask.SUBTASK, id));
     }
 
     @Override
@@ -318,30 +417,30 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     @Override
     public void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        persist(cleared(TypeTask.EPIC));
     }
 
     @Override
     public Epic getEpicId(int id) {
-        return super.getEpicId(id);
+        return viewed(super.getEpicId(id));
     }
 
     @Override
     public void createEpic(Epic epic) {
         super.createEpic(epic);
-        save();
+        persist("PUT," + toString(epic));
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        persist("PUT," + toString(epic));
     }
 
     @Override
     public void deleteEpicId(int id) {
         super.deleteEpicId(id);
-        save();
+        persist(deleted(TypeTask.EPIC, id));
     }
 
     @Override
@@ -0,0 +1,159 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.util.IntIndexedSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Журнал просмотров: одна строка с id на каждый просмотр, только дозапись в конец.
+// Запись идёт через TaskJournal, поэтому с политикой надёжности просмотры
+// пишутся фоновым потоком пачками и GET не ждёт диска.
+// Удаления не пишутся: id задач не переиспользуются, и при загрузке
+// id удалённых задач просто не находятся в менеджере.
+// При загрузке журнал читается с конца, повторы отбрасываются - получается
+// история от последних просмотров к давним. Когда записей становится намного
+// больше, чем задач в истории, журнал переписывается текущей историей.
+public class HistoryLog implements Closeable {
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+    private static final int READ_BLOCK = 64 * 1024;
+
+    private final Path file;
+    private final Path rotated;
+    private final TaskJournal journal;
+    private long records;
+    private long compactAt = MIN_COMPACTION_RECORDS;
+
+    public HistoryLog(Path file) {
+        this(file, null);
+    }
+
+    //policy == null - синхронная запись в вызывающем потоке
+    public HistoryLog(Path file, DurabilityPolicy policy) {
+        this.file = file;
+        this.rotated = file.resolveSibling(file.getFileName() + ".old");
+        this.journal = new TaskJournal(file, policy);
+    }
+
+    public void viewed(int id) {
+        journal.append(Integer.toString(id));
+        records++;
+    }
+
+    //пора переписать журнал текущей историей
+    public boolean needsCompaction() {
+        return records >= compactAt;
+    }
+
+    // ids - текущая история от давних к последним. Старый журнал сохраняется как *.old,
+    // пока новый не записан целиком, поэтому сбой посередине ничего не теряет
+    public void compact(int[] ids) {
+        StringBuilder text = new StringBuilder(ids.length * 8);
+        for (int id : ids) {
+            text.append(id).append('\n');
+        }
+        try {
+            journal.rotate();
+            SnapshotFiles.writeAtomically(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            journal.deleteRotated();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сжатия журнала истории", e);
+        }
+        records = ids.length;
+        compactAt = Math.max(MIN_COMPACTION_RECORDS, 2L * ids.length);
+    }
+
+    // Не больше limit различных id от последнего просмотра к давним.
+    // Читается с конца: сначала текущий журнал, потом *.old, оставшийся после сбоя.
+    // Недописанная последняя строка пропускается
+    public int[] recent(int limit) {
+        IntIndexedSet seen = new IntIndexedSet();
+        long scanned = 0;
+        for (Path path : new Path[]{file, rotated}) {
+            if (seen.size() >= limit || !Files.exists(path)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                scanned += readBackwards(channel, seen, limit);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка чтения журнала истории", e);
+            }
+        }
+        records = scanned;
+        // если журнал дочитан не до конца, в нём заведомо есть лишние записи
+        if (seen.size() >= limit || records > 2L * seen.size()) {
+            compactAt = 0;
+        }
+        return seen.toArray();
+    }
+
+    private static long readBackwards(FileChannel channel, IntIndexedSet seen, int limit) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BLOCK);
+        long end = channel.size();
+        long scanned = 0;
+        boolean lastLine = true;
+        long value = 0;
+        long multiplier = 1;
+        boolean digits = false;
+        boolean valid = true;
+        while (end > 0) {
+            long start = Math.max(0, end - READ_BLOCK);
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    if (lastLine) {
+                        lastLine = false; // файл кончается переводом строки - последняя строка целая
+                    } else if (digits && valid && value <= Integer.MAX_VALUE) {
+                        scanned++;
+                        if (seen.add((int) value) && seen.size() >= limit) {
+                            return scanned;
+                        }
+                    }
+                    value = 0;
+                    multiplier = 1;
+                    digits = false;
+                    valid = true;
+                    continue;
+                }
+                if (lastLine) {
+                    lastLine = false;
+                    valid = false; // недописанная строка
+                }
+                if (b >= '0' && b <= '9' && multiplier <= 1_000_000_000) {
+                    value += (b - '0') * multiplier;
+                    multiplier *= 10;
+                    digits = true;
+                } else if (b != '\r') {
+                    valid = false;
+                }
+            }
+            end = start;
+        }
+        if (digits && valid && value <= Integer.MAX_VALUE) {
+            scanned++;
+            seen.add((int) value);
+        }
+        return scanned;
+    }
+
+    //все просмотры переданы ОС
+    public void flush() {
+        journal.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
@@ -2,7 +2,11 @@ package ru.yandex.taskmanager.manager;
 
 import ru.yandex.taskmanager.model.Task;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.IntFunction;
 
 public interface HistoryManager {
     void add(Task task);
@@ -10,4 +14,28 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    //не больше limit задач, пропустив offset последних просмотров; от последних к давним
+    default List<Task> getHistory(int offset, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Task> iterator = recentFirst();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    //обход от последнего просмотра к давним; история не должна меняться во время обхода
+    default Iterator<Task> recentFirst() {
+        List<Task> history = getHistory();
+        Collections.reverse(history);
+        return history.iterator();
+    }
+
+    //откуда брать задачи по id; нужен истории, которая хранит только id
+    default void setTaskResolver(IntFunction<Task> resolver) {
+    }
 }
\ No newline at end of file
@@ -3,49 +3,124 @@ package ru.yandex.taskmanager.manager;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import ru.yandex.taskmanager.model.Epic;
 import ru.yandex.taskmanager.model.Subtask;
 import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.util.IntIndexedSet;
+import ru.yandex.taskmanager.util.IntIndexedSetAdapter;
 import ru.yandex.taskmanager.util.LocalDateTimeAdapter;
 import ru.yandex.taskmanager.util.Managers;
+import ru.yandex.taskmanager.util.TaskTypeAdapterFactory;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+
+public final class HttpTaskServer extends BaseHttpHandler {
+    //заголовок с идентификатором клиента; без него используется общая история менеджера
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    //курсор следующей страницы истории и списков; нет заголовка - страница последняя
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_HOT_LIMIT = 10;
+    private static final int DEFAULT_HISTORY_PAGE = 20;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new TaskTypeAdapterFactory())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .registerTypeAdapter(Duration.class, new LocalDateTimeAdapter.DurationAdapter())
+            .registerTypeAdapter(IntIndexedSet.class, new IntIndexedSetAdapter())
+            .create();
 
-
-public class HttpTaskServer extends BaseHttpHandler {
     private final HttpServer server;
     private final TaskManager taskManager;
+    private final ClientHistories clientHistories;
+    private final ExecutorService executor; // null - запросы на потоке диспетчера
+    private final ResponseCache responseCache;
     private final int port;
 
+    //запросы обрабатываются параллельно, поэтому по умолчанию менеджер потокобезопасный
     public HttpTaskServer() throws IOException {
-        this(Managers.getDefault(), 8080);
+        this(Managers.getConcurrent(), 8080);
     }
 
     public HttpTaskServer(TaskManager taskManager, int port) throws IOException {
-        super(new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .registerTypeAdapter(Duration.class, new LocalDateTimeAdapter.DurationAdapter())
-                .create());
-        this.taskManager = taskManager;
-        this.port = port;
-        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this(taskManager, port, new ClientHistories(taskManager::findById));
+    }
 
+    //ConcurrentTaskManager обслуживается на виртуальных потоках, остальные менеджеры - на потоке диспетчера
+    public HttpTaskServer(TaskManager taskManager, int port, ClientHistories clientHistories) throws IOException {
+        this(taskManager, port, clientHistories, ServerExecution.defaultFor(taskManager));
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int port, ClientHistories clientHistories,
+                          ServerExecution execution) throws IOException {
+        this(taskManager, port, clientHistories, execution, new ResponseCache());
+    }
 
-        server.createContext("/tasks", this::handleTasks);
-        server.createContext("/tasks/", this::handleTaskById);
-        server.createContext("/subtasks", this::handleSubtasks);
-        server.createContext("/subtasks/", this::handleSubtaskById);
-        server.createContext("/epics", this::handleEpics);
-        server.createContext("/epics/", this::handleEpicById);
+    //responseCache - кэш готовых ответов на списки, null - без кэша
+    public HttpTaskServer(TaskManager taskManager, int port, ClientHistories clientHistories,
+                          ServerExecution execution, ResponseCache responseCache) throws IOException {
+        super(GSON, responseCache);
+        if (execution.isParallel() && !(taskManager instanceof ConcurrentTaskManager)) {
+            throw new IllegalArgumentException("Параллельная обработка запросов (" + execution
+                    + ") требует ConcurrentTaskManager, передан " + taskManager.getClass().getSimpleName());
+        }
+        this.responseCache = responseCache;
+        this.taskManager = taskManager;
+        this.clientHistories = clientHistories;
+        this.server = HttpServer.create(new InetSocketAddress(port), execution.backlog());
+        this.port = server.getAddress().getPort(); // для порта 0 - выбранный системой
+        this.executor = execution.createExecutor();
+        server.setExecutor(executor);
+
+        // изменение подзадачи пересчитывает эпик, удаление эпика удаляет его подзадачи
+        server.createContext("/tasks", invalidating(this::handleTasks, TypeTask.TASK));
+        server.createContext("/tasks/", invalidating(this::handleTaskById, TypeTask.TASK));
+        server.createContext("/subtasks", invalidating(this::handleSubtasks, TypeTask.SUBTASK, TypeTask.EPIC));
+        server.createContext("/subtasks/", invalidating(this::handleSubtaskById, TypeTask.SUBTASK, TypeTask.EPIC));
+        server.createContext("/epics", invalidating(this::handleEpics, TypeTask.EPIC, TypeTask.SUBTASK));
+        server.createContext("/epics/", invalidating(this::handleEpicById, TypeTask.EPIC, TypeTask.SUBTASK));
         server.createContext("/epics/subtasks", this::handleEpicSubtasks);
         server.createContext("/history", this::handleHistory);
         server.createContext("/prioritized", this::handlePrioritized);
+        server.createContext("/hot", this::handleHot);
+        server.createContext("/schedule", invalidating(this::handleSchedule, TypeTask.values()));
+    }
+
+    // После изменяющего запроса сразу выбрасывает из кэша ответы, зависящие от types.
+    // Проверка версии при чтении и без этого не отдаст устаревший ответ, но так
+    // устаревшие записи не занимают память до вытеснения
+    private HttpHandler invalidating(HttpHandler handler, TypeTask... types) {
+        if (responseCache == null) {
+            return handler;
+        }
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } finally {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    for (TypeTask type : types) {
+                        responseCache.invalidate(type);
+                    }
+                }
+            }
+        };
     }
 
     public void start() {
@@ -55,27 +130,40 @@ public class HttpTaskServer extends BaseHttpHandler {
 
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
         System.out.println("HTTP-сервер остановлен");
     }
 
+    public int getPort() {
+        return port;
+    }
+
     //Обработчики
     private void handleTasks(HttpExchange exchange) throws IOException {
         handleRequest(exchange, (ex) -> {
             switch (ex.getRequestMethod()) {
                 case "GET":
-                    sendJson(exchange, taskManager.getAllTasks(), 200);
+                    long version = taskManager.getVersion(TypeTask.TASK);
+                    if (notModified(exchange, "tasks", version) || sendCached(exchange, version, TypeTask.TASK)) {
+                        break;
+                    }
+                    if (isPaged(exchange)) {
+                        sendPage(exchange, taskManager::getTasksPage);
+                    } else {
+                        streamJson(exchange, taskManager.getAllTasks(), 200);
+                    }
                     break;
                 case "POST":
                     Task task = parseRequestBody(exchange, Task.class);
-                    if (taskManager.getPrioritizedTasks().stream()
-                            .anyMatch(t -> !t.equals(task) && isTasksOverlap(t, task))) {
+                    boolean created = task.getId() == 0;
+                    if (!taskManager.saveTaskIfNoOverlap(task)) {
                         throw new TaskOverlapException("Task overlaps with existing tasks");
                     }
-                    if (task.getId() == 0) {
-                        taskManager.createTask(task);
+                    if (created) {
                         sendText(exchange, "Задача создана", 201);
                     } else {
-                        taskManager.updateTask(task);
                         sendText(exchange, "Задача обновлена", 200);
                     }
                     break;
@@ -96,7 +184,14 @@ public class HttpTaskServer extends BaseHttpHandler {
 
             switch (exchange.getRequestMethod()) {
                 case "GET":
-                    Task task = taskManager.getTaskId(taskId);
+                    long version = taskManager.getEntityVersion(taskId);
+                    if (version != 0 && notModified(exchange, "task-" + taskId, version)) {
+                        break; // 304 не считается просмотром и не попадает в историю
+                    }
+                    String clientId = clientId(exchange);
+                    Task task = clientId == null
+                            ? taskManager.getTaskId(taskId)
+                            : viewForClient(clientId, taskId, Task.class);
                     if (task == null) {
                         throw new NotFoundException("Task not found");
                     }
@@ -107,12 +202,10 @@ public class HttpTaskServer extends BaseHttpHandler {
                     if (updatedTask.getId() != 0 && updatedTask.getId() != taskId) {
                         throw new IllegalArgumentException("ID in path and body mismatch");
                     }
-                    if (taskManager.getPrioritizedTasks().stream()
-                            .anyMatch(t -> !t.equals(updatedTask) && isTasksOverlap(t, updatedTask))) {
+                    updatedTask.setId(taskId);
+                    if (!taskManager.saveTaskIfNoOverlap(updatedTask)) {
                         throw new TaskOverlapException("Task overlaps with existing tasks");
                     }
-                    updatedTask.setId(taskId);
-                    taskManager.updateTask(updatedTask);
                     sendText(exchange, "Задача обновлена", 200);
                     break;
                 case "DELETE":
@@ -130,19 +223,25 @@ public class HttpTaskServer extends BaseHttpHandler {
         handleRequest(exchange, (ex) -> {
             switch (ex.getRequestMethod()) {
                 case "GET":
-                    sendJson(exchange, taskManager.getAllSubTasks(), 200);
+                    long version = taskManager.getVersion(TypeTask.SUBTASK);
+                    if (notModified(exchange, "subtasks", version) || sendCached(exchange, version, TypeTask.SUBTASK)) {
+                        break;
+                    }
+                    if (isPaged(exchange)) {
+                        sendPage(exchange, taskManager::getSubtasksPage);
+                    } else {
+                        streamJson(exchange, taskManager.getAllSubTasks(), 200);
+                    }
                     break;
                 case "POST":
                     Subtask subtask = parseRequestBody(exchange, Subtask.class);
-                    if (taskManager.getPrioritizedTasks().stream()
-                            .anyMatch(t -> !t.equals(subtask) && isTasksOverlap(t, subtask))) {
+                    boolean created = subtask.getId() == 0;
+                    if (!taskManager.saveSubtaskIfNoOverlap(subtask)) {
                         throw new TaskOverlapException("Subtask overlaps with existing tasks");
                     }
-                    if (subtask.getId() == 0) {
-                        taskManager.createSubtask(subtask);
+                    if (created) {
                         sendText(exchange, "Подзадача создана", 201);
                     } else {
-                        taskManager.updateSubtask(subtask);
                         sendText(exchange, "Подзадача обновлена", 200);
                     }
                     break;
@@ -163,7 +262,14 @@ public class HttpTaskServer extends BaseHttpHandler {
 
             switch (exchange.getRequestMethod()) {
                 case "GET":
-                    Subtask subtask = taskManager.getSubTaskId(subtaskId);
+                    long version = taskManager.getEntityVersion(subtaskId);
+                    if (version != 0 && notModified(exchange, "subtask-" + subtaskId, version)) {
+                        break; // 304 не считается просмотром и не попадает в историю
+                    }
+                    String clientId = clientId(exchange);
+                    Subtask subtask = clientId == null
+                            ? taskManager.getSubTaskId(subtaskId)
+                            : viewForClient(clientId, subtaskId, Subtask.class);
                     sendJson(exchange, subtask, 200);
                     break;
                 case "POST":
@@ -171,12 +277,10 @@ public class HttpTaskServer extends BaseHttpHandler {
                     if (updatedSubtask.getId() != 0 && updatedSubtask.getId() != subtaskId) {
                         throw new IllegalArgumentException("ID in path and body mismatch");
                     }
-                    if (taskManager.getPrioritizedTasks().stream()
-                            .anyMatch(t -> !t.equals(updatedSubtask) && isTasksOverlap(t, updatedSubtask))) {
+                    updatedSubtask.setId(subtaskId);
+                    if (!taskManager.saveSubtaskIfNoOverlap(updatedSubtask)) {
                         throw new TaskOverlapException("Subtask overlaps with existing tasks");
                     }
-                    updatedSubtask.setId(subtaskId);
-                    taskManager.updateSubtask(updatedSubtask);
                     sendText(exchange, "Подзадача обновлена", 200);
                     break;
                 case "DELETE":
@@ -194,7 +298,15 @@ public class HttpTaskServer extends BaseHttpHandler {
         handleRequest(exchange, (ex) -> {
             switch (ex.getRequestMethod()) {
                 case "GET":
-                    sendJson(exchange, taskManager.getAllEpics(), 200);
+                    long version = taskManager.getVersion(TypeTask.EPIC);
+                    if (notModified(exchange, "epics", version) || sendCached(exchange, version, TypeTask.EPIC)) {
+                        break;
+                    }
+                    if (isPaged(exchange)) {
+                        sendPage(exchange, taskManager::getEpicsPage);
+                    } else {
+                        streamJson(exchange, taskManager.getAllEpics(), 200);
+                    }
                     break;
                 case "POST":
                     Epic epic = parseRequestBody(exchange, Epic.class);
@@ -223,7 +335,14 @@ public class HttpTaskServer extends BaseHttpHandler {
 
             switch (exchange.getRequestMethod()) {
                 case "GET":
-                    Epic epic = taskManager.getEpicId(epicId);
+                    long version = taskManager.getEntityVersion(epicId);
+                    if (version != 0 && notModified(exchange, "epic-" + epicId, version)) {
+                        break; // 304 не считается просмотром и не попадает в историю
+                    }
+                    String clientId = clientId(exchange);
+                    Epic epic = clientId == null
+                            ? taskManager.getEpicId(epicId)
+                            : viewForClient(clientId, epicId, Epic.class);
                     sendJson(exchange, epic, 200);
                     break;
                 case "POST":
@@ -258,13 +377,19 @@ public class HttpTaskServer extends BaseHttpHandler {
                 throw new NotFoundException("Epic ID not specified in query parameters");
             }
 
+            int epicId;
             try {
-                int epicId = Integer.parseInt(query.substring("epicId=".length()));
-                List<Subtask> subtasks = taskManager.getSubtasksEpic(epicId);
-                sendJson(exchange, subtasks, 200);
+                epicId = Integer.parseInt(query.substring("epicId=".length()));
             } catch (NumberFormatException e) {
                 throw new NotFoundException("Invalid epic ID format");
             }
+            long version = Math.max(taskManager.getVersion(TypeTask.SUBTASK), taskManager.getVersion(TypeTask.EPIC));
+            if (notModified(exchange, "epic-subtasks-" + epicId, version)
+                    || sendCached(exchange, version, TypeTask.SUBTASK, TypeTask.EPIC)) {
+                return;
+            }
+            List<Subtask> subtasks = taskManager.getSubtasksEpic(epicId);
+            sendJson(exchange, subtasks, 200);
         });
     }
 
@@ -275,10 +400,71 @@ public class HttpTaskServer extends BaseHttpHandler {
                 return;
             }
 
-            sendJson(exchange, taskManager.getHistory(), 200);
+            String clientId = clientId(exchange);
+            if (queryParam(exchange, "limit") == null && queryParam(exchange, "cursor") == null) {
+                sendJson(exchange, clientId == null
+                        ? taskManager.getHistory()
+                        : clientHistories.getHistory(clientId), 200);
+                return;
+            }
+
+            // постранично от последних просмотров; курсор - сколько задач уже отдано
+            int limit = queryInt(exchange, "limit", DEFAULT_HISTORY_PAGE);
+            int offset = queryInt(exchange, "cursor", 0);
+            if (limit <= 0 || offset < 0) {
+                throw new IllegalArgumentException("limit должен быть положительным, cursor - неотрицательным");
+            }
+            int requested = (int) Math.min((long) limit + 1, Integer.MAX_VALUE);
+            List<Task> page = clientId == null
+                    ? taskManager.getHistory(offset, requested)
+                    : clientHistories.getHistory(clientId, offset, requested);
+            if (page.size() > limit) {
+                page = page.subList(0, limit);
+                exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, Long.toString((long) offset + limit));
+            }
+            sendJson(exchange, page, 200);
         });
     }
 
+    private boolean isPaged(HttpExchange exchange) {
+        return queryParam(exchange, "limit") != null || queryParam(exchange, "cursor") != null;
+    }
+
+    // Страница списка по возрастанию id; курсор - id последней отданной задачи
+    private <T extends Task> void sendPage(HttpExchange exchange, PageSource<T> source) throws IOException {
+        int limit = queryInt(exchange, "limit", DEFAULT_PAGE_SIZE);
+        int after = queryInt(exchange, "cursor", 0);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        List<T> page = source.page(after, limit + 1);
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, Integer.toString(page.get(limit - 1).getId()));
+        }
+        sendJson(exchange, page, 200);
+    }
+
+    @FunctionalInterface
+    private interface PageSource<T> {
+        List<T> page(int afterId, int limit);
+    }
+
+    private static String clientId(HttpExchange exchange) {
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        return clientId == null || clientId.isBlank() ? null : clientId;
+    }
+
+    //просмотр записывается только в историю клиента, общая история менеджера не меняется
+    private <T extends Task> T viewForClient(String clientId, int id, Class<T> type) throws NotFoundException {
+        Task task = taskManager.findById(id);
+        if (task == null || task.getClass() != type) {
+            throw new NotFoundException(type.getSimpleName() + " not found");
+        }
+        clientHistories.record(clientId, task);
+        return type.cast(task);
+    }
+
     private void handlePrioritized(HttpExchange exchange) throws IOException {
         handleRequest(exchange, (ex) -> {
             if (!"GET".equals(exchange.getRequestMethod())) {
@@ -286,28 +472,115 @@ public class HttpTaskServer extends BaseHttpHandler {
                 return;
             }
 
-            sendJson(exchange, taskManager.getPrioritizedTasks(), 200);
+            long version = Math.max(taskManager.getVersion(TypeTask.TASK), taskManager.getVersion(TypeTask.SUBTASK));
+            if (notModified(exchange, "prioritized", version)
+                    || sendCached(exchange, version, TypeTask.TASK, TypeTask.SUBTASK)) {
+                return;
+            }
+            LocalDateTime from = queryTime(exchange, "from");
+            LocalDateTime to = queryTime(exchange, "to");
+            if (from == null && to == null && queryParam(exchange, "limit") == null) {
+                streamJson(exchange, taskManager.getPrioritizedTasks(), 200);
+                return;
+            }
+
+            // окно расписания: from и to - задачи, пересекающие [from, to), только from - начинающиеся с from
+            int limit = queryInt(exchange, "limit", MAX_PAGE_SIZE);
+            if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_PAGE_SIZE);
+            }
+            if (from == null) {
+                throw new IllegalArgumentException("не задан параметр from");
+            }
+            List<Task> window;
+            if (to == null) {
+                window = taskManager.getTasksStartingAfter(from, limit);
+            } else {
+                if (!from.isBefore(to)) {
+                    throw new IllegalArgumentException("from должен быть раньше to");
+                }
+                window = taskManager.getTasksBetween(from, to);
+                if (window.size() > limit) {
+                    window = window.subList(0, limit);
+                }
+            }
+            sendJson(exchange, window, 200);
         });
     }
 
 
-    private boolean isTasksOverlap(Task task1, Task task2) {
-        if (task1.getStartTime() == null || task2.getStartTime() == null) {
-            return false;
-        }
-        return task1.getStartTime().isBefore(task2.getEndTime()) &&
-                task2.getStartTime().isBefore(task1.getEndTime());
+    // GET /schedule?from=...&duration=<секунды> - самое раннее свободное место;
+    // POST /schedule?from=... с массивом задач - расставить их по свободным местам.
+    // Элемент массива с полем epicId считается подзадачей
+    private void handleSchedule(HttpExchange exchange) throws IOException {
+        handleRequest(exchange, (ex) -> {
+            LocalDateTime from = queryTime(exchange, "from");
+            if (from == null) {
+                from = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    int seconds = queryInt(exchange, "duration", 0);
+                    if (seconds <= 0) {
+                        throw new IllegalArgumentException("duration должен быть положительным числом секунд");
+                    }
+                    Duration duration = Duration.ofSeconds(seconds);
+                    LocalDateTime start = taskManager.findEarliestSlot(from, duration);
+                    sendJson(exchange, Map.of("startTime", start, "endTime", start.plus(duration)), 200);
+                    break;
+                case "POST":
+                    List<Task> batch = new ArrayList<>();
+                    try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(),
+                            StandardCharsets.UTF_8)) {
+                        for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray()) {
+                            boolean subtask = element.getAsJsonObject().has("epicId");
+                            batch.add(gson.fromJson(element, subtask ? Subtask.class : Task.class));
+                        }
+                    } catch (IllegalStateException | JsonParseException e) {
+                        throw new IllegalArgumentException("ожидается массив задач");
+                    }
+                    sendJson(exchange, taskManager.autoSchedule(batch, from), 201);
+                    break;
+                default:
+                    sendMethodNotAllowed(exchange);
+            }
+        });
+    }
+
+    //самые запрашиваемые задачи: /hot?limit=N
+    private void handleHot(HttpExchange exchange) throws IOException {
+        handleRequest(exchange, (ex) -> {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+            int limit = queryInt(exchange, "limit", DEFAULT_HOT_LIMIT);
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit должен быть положительным");
+            }
+            sendJson(exchange, taskManager.getHotTasks(limit), 200);
+        });
     }
 
-    //для тестов
+
+    //Gson потокобезопасен, поэтому один экземпляр на все запросы и тесты
     public static Gson getGson() {
-        return new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .registerTypeAdapter(Duration.class, new LocalDateTimeAdapter.DurationAdapter())
-                .create();
+        return GSON;
+    }
+
+    // Заголовки и тело ответа уходят разными пакетами, и без TCP_NODELAY тело ждёт
+    // подтверждения заголовков (delayed ACK) - около 40 мс на каждый запрос по keep-alive
+    // соединению. Свойство общее для всех HttpServer процесса и читается при создании
+    // первого из них, поэтому его задаёт только main; при встраивании сервера -
+    // флагом запуска -Dsun.net.httpserver.nodelay=true
+    public static void enableNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
     }
 
     public static void main(String[] args) {
+        enableNoDelay();
         try {
             HttpTaskServer server = new HttpTaskServer();
             server.start();
@@ -5,8 +5,10 @@ import ru.yandex.taskmanager.model.Task;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public class InMemoryHistoryManager implements HistoryManager {
     private final Map<Integer, Node> historyMap = new HashMap<>();
@@ -57,6 +59,29 @@ public class InMemoryHistoryManager implements HistoryManager {
         return history;
     }
 
+    //идёт по списку с хвоста, ничего не копируя
+    @Override
+    public Iterator<Task> recentFirst() {
+        return new Iterator<>() {
+            private Node current = tail;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public Task next() {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                Task task = current.task;
+                current = current.prev;
+                return task;
+            }
+        };
+    }
+
     private void linkLast(Task task) {
         final Node newNode = new Node(task, tail, null);
         if (tail == null) {
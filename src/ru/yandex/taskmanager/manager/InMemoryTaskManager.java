@@ -4,128 +4,293 @@ import ru.yandex.taskmanager.model.Epic;
 import ru.yandex.taskmanager.model.Subtask;
 import ru.yandex.taskmanager.model.Task;
 import ru.yandex.taskmanager.model.TaskStatus;
+import ru.yandex.taskmanager.util.IntObjectHashMap;
+import ru.yandex.taskmanager.util.IntObjectSortedMap;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
 
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Set<Task> prioritizedTasks = new TreeSet<>(
-            Comparator.comparing(
-                    Task::getStartTime,
-                    Comparator.nullsLast(Comparator.naturalOrder())
-            )
-    );
-    private final Map<Integer, Task> tasks = new HashMap<>(); // задачи
-    private final Map<Integer, Subtask> subtasks = new HashMap<>(); // подзадачи
-    private final Map<Integer, Epic> epics = new HashMap<>(); // эпики
+    private final TimeIntervalIndex prioritizedTasks = new TimeIntervalIndex(); // задачи со временем начала
+    private final IntObjectSortedMap<Task> tasks = new IntObjectSortedMap<>(); // задачи
+    private final IntObjectSortedMap<Subtask> subtasks = new IntObjectSortedMap<>(); // подзадачи
+    private final IntObjectSortedMap<Epic> epics = new IntObjectSortedMap<>(); // эпики
+    private final IntObjectHashMap<EpicAggregate> epicAggregates = new IntObjectHashMap<>(); // счётчики подзадач эпиков
     private int nextId = 1; // id-шники
 
     private final HistoryManager historyManager;
+    private final AccessFrequencyTracker accessFrequency = new AccessFrequencyTracker();
+    private SlotOccupancyIndex slotGrid; // сетка слотов, null - выключена
+    private final ModificationVersions versions = new ModificationVersions();
 
     public InMemoryTaskManager(HistoryManager historyManager) {
         this.historyManager = historyManager;
+        historyManager.setTaskResolver(resolver(tasks, subtasks, epics));
+    }
+
+    // резолвер истории держит карты, а не сам менеджер: this не уходит наружу из конструктора
+    private static IntFunction<Task> resolver(IntObjectSortedMap<Task> tasks, IntObjectSortedMap<Subtask> subtasks,
+                                              IntObjectSortedMap<Epic> epics) {
+        return id -> find(tasks, subtasks, epics, id);
+    }
+
+    // Режим календаря: задачи, выровненные по слотам длины slot, в горизонте horizonDays дней
+    // от firstDay дополнительно отмечаются в битовой сетке, и проверка пересечения для них
+    // не обходит дерево. Задачи вне сетки по-прежнему проверяются по prioritizedTasks
+    public void useSlotGrid(Duration slot, LocalDate firstDay, int horizonDays) {
+        slotGrid = new SlotOccupancyIndex(slot, firstDay, horizonDays);
+        prioritizedTasks.toList().forEach(slotGrid::add);
+    }
+
+    private void schedule(Task task) {
+        prioritizedTasks.add(task);
+        if (slotGrid != null) {
+            slotGrid.add(task);
+        }
+    }
+
+    private void unschedule(Task task) {
+        prioritizedTasks.remove(task);
+        if (slotGrid != null) {
+            slotGrid.remove(task);
+        }
     }
 
     private int generateId() {
         return nextId++;
     }
 
-    //проверка пересечения двух задач
-    private boolean isTasksOverlap(Task task1, Task task2) {
-        if (task1.getStartTime() == null || task2.getStartTime() == null) {
-            return false;
+    //просмотр по id: история и частота обращений
+    private void recordView(Task task) {
+        historyManager.add(task);
+        accessFrequency.record(task.getId());
+    }
+
+    private void forget(int id) {
+        historyManager.remove(id);
+        accessFrequency.remove(id);
+    }
+
+    @Override
+    public List<Task> getHotTasks(int limit) {
+        List<Task> hot = new ArrayList<>();
+        for (int id : accessFrequency.top(limit)) {
+            Task task = findById(id);
+            if (task != null) {
+                hot.add(task);
+            }
         }
+        return hot;
+    }
 
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = task1.getEndTime();
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = task2.getEndTime();
+    //задача любого типа по id, без записи в историю
+    @Override
+    public Task findById(int id) {
+        return find(tasks, subtasks, epics, id);
+    }
 
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    private static Task find(IntObjectSortedMap<Task> tasks, IntObjectSortedMap<Subtask> subtasks,
+                             IntObjectSortedMap<Epic> epics, int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        if (task == null) {
+            task = epics.get(id);
+        }
+        return task;
     }
 
     //пересечения задачи с другими
-    private boolean hasTimeOverlap(Task newTask) {
-        if (newTask.getStartTime() == null) {
+    @Override
+    public boolean hasTimeOverlap(Task newTask) {
+        if (slotGrid != null && slotGrid.isOnGrid(newTask)) {
+            return slotGrid.hasOverlap(newTask);
+        }
+        return prioritizedTasks.hasOverlap(newTask);
+    }
+
+    @Override
+    public boolean saveTaskIfNoOverlap(Task task) {
+        if (hasTimeOverlap(task)) {
             return false;
         }
+        if (task.getId() == 0) {
+            createTask(task);
+        } else {
+            updateTask(task);
+        }
+        return true;
+    }
 
-        return getPrioritizedTasks().stream()
-                .filter(task -> !task.equals(newTask))
-                .anyMatch(existingTask -> isTasksOverlap(newTask, existingTask));
+    @Override
+    public boolean saveSubtaskIfNoOverlap(Subtask subtask) {
+        if (hasTimeOverlap(subtask)) {
+            return false;
+        }
+        if (subtask.getId() == 0) {
+            createSubtask(subtask);
+        } else {
+            updateSubtask(subtask);
+        }
+        return true;
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks)
-                .stream()
-                .filter(task -> task.getStartTime() != null)
-                .collect(Collectors.toList());
+        return prioritizedTasks.toList();
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.findOverlapping(from, to);
+    }
+
+    @Override
+    public List<Task> getTasksStartingAfter(LocalDateTime time, int limit) {
+        return prioritizedTasks.findStartingFrom(time, limit);
+    }
+
+    @Override
+    public LocalDateTime findEarliestSlot(LocalDateTime from, Duration duration) {
+        LocalDateTime start = slotGrid != null ? slotGrid.findEarliestGap(from, duration) : null;
+        return start != null ? start : prioritizedTasks.findEarliestGap(from, duration);
+    }
+
+    // Каждая задача сразу попадает в индекс, поэтому следующая ищет место уже с её учётом.
+    // Уже сохранённая задача перепланируется на месте, с прежним id
+    @Override
+    public List<Task> autoSchedule(List<? extends Task> batch, LocalDateTime from) {
+        batch.forEach(InMemoryTaskManager::checkSchedulable);
+        List<Task> scheduled = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            Task stored = task instanceof Subtask ? subtasks.get(task.getId()) : tasks.get(task.getId());
+            if (stored != null) {
+                unschedule(stored); // старое время не должно мешать поиску места
+            }
+            task.setStartTime(findEarliestSlot(from, task.getDuration()));
+            if (task instanceof Subtask subtask) {
+                if (stored != null) {
+                    updateSubtask(subtask);
+                } else {
+                    createSubtask(subtask);
+                }
+            } else if (stored != null) {
+                updateTask(task);
+            } else {
+                createTask(task);
+            }
+            scheduled.add(task);
+        }
+        return scheduled;
+    }
+
+    static void checkSchedulable(Task task) {
+        if (task instanceof Epic) {
+            throw new IllegalArgumentException("Время эпика определяется подзадачами");
+        }
+        if (task.getDuration() == null || task.getDuration().isNegative() || task.getDuration().isZero()) {
+            throw new IllegalArgumentException("Для планирования нужна положительная длительность: " + task.getName());
+        }
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return tasks.valuesAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return subtasks.valuesAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return epics.valuesAfter(afterId, limit);
     }
 
     // Методы для Task
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        return tasks.values();
     }
 
     @Override
     public void deleteAllTasks() {
+        tasks.forEachValue(task -> {
+            unschedule(task);
+            forget(task.getId());
+            versions.removed(TypeTask.TASK, task.getId());
+        });
         tasks.clear();
+        versions.changedAll(TypeTask.TASK);
     }
 
     @Override
     public Task getTaskId(int id) {
         Task task = tasks.get(id);
         if (task != null) {
-            historyManager.add(task);
+            recordView(task);
         }
         return task;
     }
 
     @Override
     public void createTask(Task task) {
-        tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
+        if (task.getId() == 0) {
+            task.setId(generateId());
+        } else {
+            reserveId(task.getId()); // явный id не должен выдаться следующей задаче
         }
+        tasks.put(task.getId(), task);
+        schedule(task);
+        versions.changed(TypeTask.TASK, task.getId());
     }
 
     @Override
     public void updateTask(Task task) {
         Task oldTask = tasks.get(task.getId());
         if (oldTask != null) {
-            prioritizedTasks.remove(oldTask);
+            unschedule(oldTask);
         }
         tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        schedule(task);
+        versions.changed(TypeTask.TASK, task.getId());
     }
 
     @Override
     public void deleteTaskId(int id) {
         Task task = tasks.remove(id);
         if (task != null) {
-            prioritizedTasks.remove(task);
+            unschedule(task);
+            versions.removed(TypeTask.TASK, id);
         }
     }
 
     // Методы для Subtask
     @Override
     public List<Subtask> getAllSubTasks() {
-        return new ArrayList<>(subtasks.values());
+        return subtasks.values();
     }
 
     @Override
     public void deleteAllSubTask() {
-        subtasks.values().forEach(prioritizedTasks::remove);
+        subtasks.forEachValue(subtask -> {
+            unschedule(subtask);
+            forget(subtask.getId());
+            versions.removed(TypeTask.SUBTASK, subtask.getId());
+        });
         subtasks.clear();
-        epics.values().forEach(epic -> {
-            epic.getSubtaskIds().clear();
-            updateEpicStatus(epic.getId());
+        versions.changedAll(TypeTask.SUBTASK);
+        epics.forEachValue(epic -> {
+            epic.clearSubtasks();
+            epicAggregates.get(epic.getId()).clear();
+            updateEpicFields(epic.getId());
         });
     }
 
@@ -133,7 +298,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Subtask getSubTaskId(int id) {
         Subtask subtask = subtasks.get(id);
         if (subtask != null) {
-            historyManager.add(subtask);
+            recordView(subtask);
         }
         return subtask;
     }
@@ -142,24 +307,35 @@ public class InMemoryTaskManager implements TaskManager {
     public void createSubtask(Subtask subtask) {
         subtask.setId(generateId());
         subtasks.put(subtask.getId(), subtask);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
-        }
-        subtask.setId(generateId());
+        schedule(subtask);
 
         Epic epic = epics.get(subtask.getEpicId());
         if (epic != null) {
             epic.addSubtask(subtask.getId());
-            updateEpicStatus(epic.getId());
+            epicAggregates.get(epic.getId()).add(subtask);
+            updateEpicFields(epic.getId());
         }
+        versions.changed(TypeTask.SUBTASK, subtask.getId());
     }
 
+    //при смене epicId подзадача переходит из прежнего эпика в новый
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (subtasks.containsKey(subtask.getId())) {
-            prioritizedTasks.remove(subtasks.get(subtask.getId()));
+        Subtask oldSubtask = subtasks.get(subtask.getId());
+        if (oldSubtask != null) {
+            unschedule(oldSubtask);
+            if (oldSubtask.getEpicId() != subtask.getEpicId()) {
+                unlinkSubtask(oldSubtask);
+            }
             subtasks.put(subtask.getId(), subtask);
-            updateEpicStatus(subtask.getEpicId());
+            schedule(subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtask(subtask.getId());
+                epicAggregates.get(epic.getId()).add(subtask);
+                updateEpicFields(epic.getId());
+            }
+            versions.changed(TypeTask.SUBTASK, subtask.getId());
         }
     }
 
@@ -167,32 +343,47 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteSubtaskId(int id) {
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
+            unschedule(subtask);
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
                 epic.removeSubtask(id);
-                updateEpicStatus(epic.getId());
+                epicAggregates.get(epic.getId()).remove(id);
+                updateEpicFields(epic.getId());
             }
-            historyManager.remove(id);
+            forget(id);
+            versions.removed(TypeTask.SUBTASK, id);
         }
     }
 
     // Методы для Epic
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        return epics.values();
     }
 
     @Override
     public void deleteAllEpics() {
+        subtasks.forEachValue(subtask -> {
+            unschedule(subtask);
+            forget(subtask.getId());
+            versions.removed(TypeTask.SUBTASK, subtask.getId());
+        });
+        epics.forEachValue(epic -> {
+            forget(epic.getId());
+            versions.removed(TypeTask.EPIC, epic.getId());
+        });
         epics.clear();
+        epicAggregates.clear();
         subtasks.clear();
+        versions.changedAll(TypeTask.SUBTASK);
+        versions.changedAll(TypeTask.EPIC);
     }
 
     @Override
     public Epic getEpicId(int id) {
         Epic epic = epics.get(id);
         if (epic != null) {
-            historyManager.add(epic);
+            recordView(epic);
         }
         return epic;
     }
@@ -201,13 +392,22 @@ public class InMemoryTaskManager implements TaskManager {
     public void createEpic(Epic epic) {
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
+        epicAggregates.put(epic.getId(), new EpicAggregate());
+        versions.changed(TypeTask.EPIC, epic.getId());
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        if (epics.containsKey(epic.getId())) {
+        Epic oldEpic = epics.get(epic.getId());
+        if (oldEpic != null) {
+            keepSubtasks(oldEpic, epic);
             epics.put(epic.getId(), epic);
-            updateEpicStatus(epic.getId());
+            if (epicAggregates.get(epic.getId()).isEmpty()) {
+                epic.setStatus(TaskStatus.NEW);
+            } else {
+                updateEpicFields(epic.getId());
+            }
+            versions.changed(TypeTask.EPIC, epic.getId());
         }
     }
 
@@ -215,18 +415,45 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpicId(int id) {
         Epic epic = epics.remove(id);
         if (epic != null) {
-            epic.getSubtaskIds().forEach(subtasks::remove);
+            epicAggregates.remove(id);
+            epic.getSubtaskIds().forEach(subtaskId -> {
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (subtask != null) {
+                    unschedule(subtask);
+                    forget(subtaskId);
+                    versions.removed(TypeTask.SUBTASK, subtaskId);
+                }
+            });
+            versions.removed(TypeTask.EPIC, id);
         }
-        historyManager.remove(id);
+        forget(id);
     }
 
     // Дополнительные методы
     @Override
     public List<Subtask> getSubtasksEpic(int epicId) {
-        return epics.getOrDefault(epicId, new Epic(0, "", "", TaskStatus.NEW))
-                .getSubtaskIds().stream()
-                .map(subtasks::get)
-                .collect(Collectors.toList());
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskIds().size());
+        epic.getSubtaskIds().forEach(subtaskId -> result.add(subtasks.get(subtaskId)));
+        return result;
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.global();
+    }
+
+    @Override
+    public long getVersion(TypeTask type) {
+        return versions.collection(type);
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return versions.entity(id);
     }
 
     @Override
@@ -234,41 +461,149 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    void updateEpicStatus(int epicId) {
-        Epic epic = epics.get(epicId);
-        if (epic == null) return;
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return historyManager.getHistory(offset, limit);
+    }
 
-        List<Subtask> subtasks = getSubtasksEpic(epicId);
-        if (subtasks.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
+    // Восстановление из файла: сохранённые id, без записи в историю
+    protected void restoreTask(Task task) {
+        Task oldTask = tasks.put(task.getId(), task);
+        if (oldTask != null) {
+            unschedule(oldTask);
+        }
+        schedule(task);
+        reserveId(task.getId());
+        versions.changed(TypeTask.TASK, task.getId());
+    }
+
+    protected void restoreSubtask(Subtask subtask) {
+        Subtask oldSubtask = subtasks.put(subtask.getId(), subtask);
+        if (oldSubtask != null) {
+            unschedule(oldSubtask);
+            if (oldSubtask.getEpicId() != subtask.getEpicId()) {
+                unlinkSubtask(oldSubtask);
+            }
+        }
+        schedule(subtask);
+
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.addSubtask(subtask.getId());
+            epicAggregates.get(epic.getId()).add(subtask);
+            updateEpicFields(epic.getId());
         }
+        reserveId(subtask.getId());
+        versions.changed(TypeTask.SUBTASK, subtask.getId());
+    }
 
-        boolean allNew = true;
-        boolean allDone = true;
+    protected void restoreEpic(Epic epic) {
+        Epic oldEpic = epics.put(epic.getId(), epic);
+        if (oldEpic != null) {
+            oldEpic.getSubtaskIds().forEach(epic::addSubtask);
+        }
+        EpicAggregate aggregate = epicAggregates.get(epic.getId());
+        if (aggregate == null) {
+            epicAggregates.put(epic.getId(), new EpicAggregate());
+        } else if (!aggregate.isEmpty()) {
+            aggregate.applyTo(epic);
+        }
+        reserveId(epic.getId());
+        versions.changed(TypeTask.EPIC, epic.getId());
+    }
 
-        for (Subtask subtask : subtasks) {
-            if (subtask == null) continue;
-            TaskStatus status = subtask.getStatus();
-            if (status == null) continue;
-            if (status != TaskStatus.NEW) allNew = false;
-            if (status != TaskStatus.DONE) allDone = false;
+    // Массовая загрузка в пустой менеджер: записи кладутся в хранилища напрямую
+    // в любом порядке, расписание, связи эпиков и их счётчики строятся один раз в конце
+    protected void bulkRestore(Iterable<? extends Task> loaded) {
+        for (Task task : loaded) {
+            bulkPut(task);
+        }
+        finishBulkRestore();
+    }
+
+    //до вызова finishBulkRestore расписание и эпики не согласованы с хранилищами
+    protected void bulkPut(Task task) {
+        if (task instanceof Epic epic) {
+            epics.put(epic.getId(), epic);
+            epicAggregates.put(epic.getId(), new EpicAggregate());
+        } else if (task instanceof Subtask subtask) {
+            subtasks.put(subtask.getId(), subtask);
+        } else {
+            tasks.put(task.getId(), task);
+        }
+        reserveId(task.getId());
+    }
 
+    protected void finishBulkRestore() {
+        tasks.forEachValue(this::schedule);
+        subtasks.forEachValue(subtask -> {
+            schedule(subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtask(subtask.getId());
+                epicAggregates.get(epic.getId()).add(subtask);
+            }
+        });
+        epics.forEachValue(epic -> {
+            EpicAggregate aggregate = epicAggregates.get(epic.getId());
+            if (!aggregate.isEmpty()) {
+                aggregate.applyTo(epic);
+            }
+        });
+        tasks.forEachValue(task -> versions.changed(TypeTask.TASK, task.getId()));
+        subtasks.forEachValue(subtask -> versions.changed(TypeTask.SUBTASK, subtask.getId()));
+        epics.forEachValue(epic -> versions.changed(TypeTask.EPIC, epic.getId()));
+    }
 
-            if (status == TaskStatus.IN_PROGRESS) {
-                epic.setStatus(TaskStatus.IN_PROGRESS);
-                return;
+    // Восстановление истории: ids от давних просмотров к последним,
+    // id задач, которых уже нет, пропускаются
+    protected void restoreHistory(int[] ids) {
+        for (int id : ids) {
+            Task task = findById(id);
+            if (task != null) {
+                historyManager.add(task);
             }
         }
+    }
 
-        if (allDone) {
-            epic.setStatus(TaskStatus.DONE);
-        } else if (allNew) {
-            epic.setStatus(TaskStatus.NEW);
-        } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+    //сколько просмотров помнит история
+    protected int historyCapacity() {
+        return historyManager instanceof BoundedHistoryManager bounded ? bounded.capacity() : Integer.MAX_VALUE;
+    }
+
+    private void unlinkSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.removeSubtask(subtask.getId());
+            epicAggregates.get(epic.getId()).remove(subtask.getId());
+            updateEpicFields(epic.getId());
+        }
+    }
+
+    // Состав подзадач ведёт менеджер: список из обновления (например, из JSON запроса)
+    // заменяется сохранённым, как при восстановлении эпика
+    static void keepSubtasks(Epic stored, Epic update) {
+        if (stored == update) {
+            return;
+        }
+        update.clearSubtasks();
+        for (int subtaskId : stored.subtaskIdsSnapshot()) {
+            update.addSubtask(subtaskId);
         }
     }
 
+    private void reserveId(int id) {
+        if (id >= nextId) {
+            nextId = id + 1;
+        }
+    }
 
-}
\ No newline at end of file
+    //статус, длительность и время эпика по счётчикам его подзадач
+    void updateEpicFields(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) return;
+
+        epicAggregates.get(epicId).applyTo(epic);
+        versions.changed(TypeTask.EPIC, epicId);
+    }
+}
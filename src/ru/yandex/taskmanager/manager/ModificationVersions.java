@@ -0,0 +1,68 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Версии изменений менеджера: общий счётчик, версия каждой коллекции (задачи, подзадачи, эпики)
+// и каждой задачи - номер последнего изменения, которое её затронуло.
+// Счётчик начинается с текущего времени в микросекундах, поэтому после перезапуска версии
+// не повторяются, и старый ETag клиента не совпадёт с новыми данными.
+// Менеджер отмечает изменение после того, как обновил хранилища, а читатель берёт версию
+// до чтения данных: тогда версия может только отставать от данных, и устаревший ответ
+// никогда не получит свежую версию.
+public class ModificationVersions {
+    private final AtomicLong counter = new AtomicLong(System.currentTimeMillis() * 1_000);
+    private final AtomicLongArray collections = new AtomicLongArray(TypeTask.values().length);
+    private final Map<Integer, Long> entities = new ConcurrentHashMap<>();
+
+    public ModificationVersions() {
+        for (int i = 0; i < collections.length(); i++) {
+            collections.set(i, counter.get());
+        }
+    }
+
+    //задача id типа type создана или изменена
+    public void changed(TypeTask type, int id) {
+        long version = next(type);
+        entities.merge(id, version, Math::max);
+    }
+
+    public void removed(TypeTask type, int id) {
+        entities.remove(id);
+        next(type);
+    }
+
+    //задачи removed удалены из коллекции type
+    public void removed(TypeTask type, Iterable<? extends Task> removed) {
+        removed.forEach(task -> entities.remove(task.getId()));
+        next(type);
+    }
+
+    //изменилась вся коллекция, например, очищена
+    public void changedAll(TypeTask type) {
+        next(type);
+    }
+
+    public long global() {
+        return counter.get();
+    }
+
+    public long collection(TypeTask type) {
+        return collections.get(type.ordinal());
+    }
+
+    //0 - задачи нет или её версия неизвестна
+    public long entity(int id) {
+        return entities.getOrDefault(id, 0L);
+    }
+
+    private long next(TypeTask type) {
+        long version = counter.incrementAndGet();
+        collections.accumulateAndGet(type.ordinal(), version, Math::max);
+        return version;
+    }
+}
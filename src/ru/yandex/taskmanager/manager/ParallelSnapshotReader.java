@@ -0,0 +1,153 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+// Параллельное чтение снимка: файл отображается в память (mmap) и режется
+// на куски по границам строк. Каждая запись снимка занимает одну строку
+// (см. TaskCsvFormat), поэтому куски разбираются независимо на ForkJoinPool.
+// Задачи отдаются потребителю в вызывающем потоке строго в порядке файла,
+// так что результат совпадает с последовательным чтением.
+public class ParallelSnapshotReader {
+    private static final long MIN_CHUNK = 256 * 1024;
+    private static final long MAX_CHUNK = 16 * 1024 * 1024;
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    private final Path file;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    public ParallelSnapshotReader(Path file, ForkJoinPool pool) {
+        this(file, pool, 0);
+    }
+
+    //chunkSize <= 0 - размер куска подбирается по размеру файла и числу потоков
+    public ParallelSnapshotReader(Path file, ForkJoinPool pool, long chunkSize) {
+        this.file = file;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public void read(Consumer<Task> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            long[] bounds = split(channel, size);
+            List<List<Task>> results = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                results.add(null);
+            }
+            pool.invoke(new ParseChunks(channel, bounds, results, 0, bounds.length - 1));
+
+            for (List<Task> chunk : results) {
+                chunk.forEach(consumer);
+            }
+        }
+    }
+
+    // границы кусков: каждая, кроме последней, стоит сразу после '\n'
+    private long[] split(FileChannel channel, long size) throws IOException {
+        long target = chunkSize > 0
+                ? chunkSize
+                : Math.clamp(size / (pool.getParallelism() * 4L), MIN_CHUNK, MAX_CHUNK);
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = target;
+        while (position < size) {
+            long next = nextLineStart(channel, position, size);
+            if (next >= size) {
+                break;
+            }
+            bounds.add(next);
+            position = next + target;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            int length = (int) Math.min(SCAN_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return size;
+    }
+
+    private static List<Task> parse(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+        List<Task> tasks = new ArrayList<>();
+        TaskCsvReader reader = new TaskCsvReader(chars.array(),
+                chars.arrayOffset() + chars.position(), chars.arrayOffset() + chars.limit());
+        while (true) {
+            Task task;
+            try {
+                task = reader.next();
+            } catch (ManagerSaveException e) {
+                // номер строки считается от начала куска
+                System.err.println("Ошибка в снимке (кусок с байта " + from + "): " + e.getMessage());
+                continue;
+            }
+            if (task == null) {
+                return tasks;
+            }
+            tasks.add(task);
+        }
+    }
+
+    // делит диапазон кусков пополам, пока не останется один
+    // задача пула не сериализуется, поля с каналом и результатами помечены transient
+    private static class ParseChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long[] bounds;
+        private final transient List<List<Task>> results;
+        private final int from;
+        private final int to;
+
+        ParseChunks(FileChannel channel, long[] bounds, List<List<Task>> results, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseChunks(channel, bounds, results, from, middle),
+                        new ParseChunks(channel, bounds, results, middle, to));
+                return;
+            }
+            try {
+                results.set(from, parse(channel, bounds[from], bounds[from + 1]));
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка чтения снимка", e);
+            }
+        }
+    }
+}
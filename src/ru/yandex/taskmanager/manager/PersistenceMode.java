@@ -0,0 +1,7 @@
+package ru.yandex.taskmanager.manager;
+
+public enum PersistenceMode {
+    SNAPSHOT,    // каждое изменение перезаписывает весь файл
+    JOURNAL,     // каждое изменение дописывает одну запись в журнал
+    WRITE_BEHIND // записи журнала копятся и пишутся фоновым потоком пачками
+}
@@ -0,0 +1,182 @@
+package ru.yandex.taskmanager.manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+// Кэш готовых тел GET-ответов HttpTaskServer: ключ - путь с запросом, значение - байты JSON
+// (и, по желанию, уже сжатые gzip) вместе с версией данных, из которой они построены.
+// Запись действительна, пока версия коллекций, от которых она зависит (tags), не изменилась:
+// устаревшая запись просто не совпадёт по версии. Изменяющие запросы через HTTP
+// выбрасывают зависящие записи сразу, не дожидаясь вытеснения.
+// Объём ограничен budgetBytes, при переполнении вытесняются давно не читанные записи (LRU)
+public class ResponseCache {
+    public static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 128; // объект записи, ключ в таблице, заголовки
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private final long budgetBytes;
+    private final int maxEntryBytes;
+    private final boolean gzip;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    public static final class Entry {
+        private final long version;
+        private final int tags;
+        private final byte[] body;
+        private final byte[] gzipped; // null - не сжималось
+        private final Map<String, String> headers;
+
+        private Entry(long version, int tags, byte[] body, byte[] gzipped, Map<String, String> headers) {
+            this.version = version;
+            this.tags = tags;
+            this.body = body;
+            this.gzipped = gzipped;
+            this.headers = headers;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public byte[] gzipped() {
+            return gzipped;
+        }
+
+        //дополнительные заголовки ответа, например курсор следующей страницы
+        public Map<String, String> headers() {
+            return headers;
+        }
+
+        private long cost(String key) {
+            return body.length + (gzipped != null ? gzipped.length : 0) + key.length() * 2L + ENTRY_OVERHEAD;
+        }
+    }
+
+    public ResponseCache() {
+        this(DEFAULT_BUDGET_BYTES, true);
+    }
+
+    //одна запись занимает не больше восьмой части бюджета, большие ответы не кэшируются
+    public ResponseCache(long budgetBytes, boolean gzip) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Бюджет кэша должен быть положительным: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE - 8, budgetBytes / 8);
+        this.gzip = gzip;
+    }
+
+    //размер тела, больше которого ответ не кэшируется
+    public int maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    //запись для версии version или null; запись другой версии устарела и удаляется
+    public Entry get(String key, long version) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.version == version) {
+                return entry;
+            }
+            if (entry.version < version) {
+                entries.remove(key);
+                usedBytes -= entry.cost(key);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //tags - битовая маска TypeTask.ordinal() коллекций, от которых зависит ответ
+    public void put(String key, long version, int tags, byte[] body, Map<String, String> headers) {
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+        byte[] gzipped = gzip && body.length >= MIN_GZIP_SIZE ? compress(body) : null;
+        if (gzipped != null && gzipped.length >= body.length) {
+            gzipped = null;
+        }
+        Entry entry = new Entry(version, tags, body, gzipped, Map.copyOf(headers));
+        lock.lock();
+        try {
+            Entry old = entries.get(key);
+            if (old != null) {
+                if (old.version > version) {
+                    return; // уже есть ответ по более свежим данным
+                }
+                entries.remove(key);
+                usedBytes -= old.cost(key);
+            }
+            entries.put(key, entry);
+            usedBytes += entry.cost(key);
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (usedBytes > budgetBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> evicted = eldest.next();
+                usedBytes -= evicted.getValue().cost(evicted.getKey());
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //выбросить ответы, зависящие от коллекции type
+    public void invalidate(TypeTask type) {
+        int mask = tag(type);
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> next = iterator.next();
+                if ((next.getValue().tags & mask) != 0) {
+                    usedBytes -= next.getValue().cost(next.getKey());
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static int tag(TypeTask type) {
+        return 1 << type.ordinal();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // в память не бывает
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.taskmanager.manager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Модель выполнения запросов HttpTaskServer: на чём выполняются обработчики
+// и сколько входящих соединений ждёт в очереди ОС (backlog).
+// При любом варианте, кроме dispatcherThread, обработчики работают параллельно,
+// и менеджер задач должен быть потокобезопасным (ConcurrentTaskManager).
+public class ServerExecution {
+    public static final int DEFAULT_BACKLOG = 1024;
+
+    private final Supplier<ExecutorService> executorFactory; // null - поток диспетчера HttpServer
+    private final int backlog;
+    private final String description;
+
+    private ServerExecution(Supplier<ExecutorService> executorFactory, int backlog, String description) {
+        if (backlog < 0) {
+            throw new IllegalArgumentException("backlog не может быть отрицательным: " + backlog);
+        }
+        this.executorFactory = executorFactory;
+        this.backlog = backlog;
+        this.description = description;
+    }
+
+    //виртуальный поток на каждый запрос - по умолчанию
+    public static ServerExecution virtualThreads() {
+        return virtualThreads(DEFAULT_BACKLOG);
+    }
+
+    public static ServerExecution virtualThreads(int backlog) {
+        return new ServerExecution(Executors::newVirtualThreadPerTaskExecutor, backlog, "virtual threads");
+    }
+
+    // Пул из threads платформенных потоков с очередью на queueSize запросов.
+    // Когда очередь полна, запрос выполняет поток диспетчера, и приём новых соединений
+    // притормаживает, а не копит их в памяти
+    public static ServerExecution platformPool(int threads, int queueSize, int backlog) {
+        if (threads <= 0 || queueSize <= 0) {
+            throw new IllegalArgumentException("Размеры пула должны быть положительными: " + threads + ", " + queueSize);
+        }
+        return new ServerExecution(() -> new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy()),
+                backlog, "platform pool of " + threads);
+    }
+
+    //все запросы по очереди на потоке диспетчера HttpServer, как без setExecutor
+    public static ServerExecution dispatcherThread(int backlog) {
+        return new ServerExecution(null, backlog, "dispatcher thread");
+    }
+
+    //параллельно - только для потокобезопасного менеджера, остальные обслуживает поток диспетчера
+    public static ServerExecution defaultFor(TaskManager taskManager) {
+        return taskManager instanceof ConcurrentTaskManager
+                ? virtualThreads()
+                : dispatcherThread(DEFAULT_BACKLOG);
+    }
+
+    //обработчики могут выполняться одновременно
+    boolean isParallel() {
+        return executorFactory != null;
+    }
+
+    //новый исполнитель для сервера или null
+    ExecutorService createExecutor() {
+        return executorFactory == null ? null : executorFactory.get();
+    }
+
+    int backlog() {
+        return backlog;
+    }
+
+    @Override
+    public String toString() {
+        return description + ", backlog " + backlog;
+    }
+}
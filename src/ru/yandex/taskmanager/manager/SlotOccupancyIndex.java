@@ -0,0 +1,249 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Занятость сетки слотов фиксированной длины (например, по 15 минут) на horizonDays дней вперёд.
+// Для каждого дня хранится битовая маска long[], бит на слот; день без задач маски не занимает.
+// Задача ложится в сетку, если начинается на границе слота, длится целое число слотов,
+// целиком лежит в горизонте и её слоты свободны. Тогда проверка пересечения - AND по словам
+// маски, а поиск свободного места - поиск серии нулевых бит.
+// Остальные задачи хранятся в обычном TimeIntervalIndex и проверяются по нему.
+public class SlotOccupancyIndex {
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final LocalDate firstDay;
+    private final long slotSeconds;
+    private final int slotsPerDay;
+    private final int wordsPerDay;
+    private final long totalSlots;
+    private final long[][] days;
+    private final Map<Task, long[]> onGrid = new HashMap<>(); // задача -> {первый слот, слот после последнего}
+    private final TimeIntervalIndex offGrid = new TimeIntervalIndex();
+
+    //slot должен делить сутки нацело
+    public SlotOccupancyIndex(Duration slot, LocalDate firstDay, int horizonDays) {
+        if (slot.isNegative() || slot.isZero() || slot.getNano() != 0 || SECONDS_PER_DAY % slot.getSeconds() != 0) {
+            throw new IllegalArgumentException("Длина слота должна делить сутки нацело: " + slot);
+        }
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Горизонт должен быть положительным: " + horizonDays);
+        }
+        this.firstDay = firstDay;
+        this.slotSeconds = slot.getSeconds();
+        this.slotsPerDay = (int) (SECONDS_PER_DAY / slotSeconds);
+        this.wordsPerDay = (slotsPerDay + 63) >>> 6;
+        this.totalSlots = (long) slotsPerDay * horizonDays;
+        this.days = new long[horizonDays][];
+    }
+
+    public void add(Task task) {
+        if (task.getStartTime() == null) {
+            return;
+        }
+        remove(task);
+        long[] range = slotRange(task.getStartTime(), task.getDuration());
+        if (range != null && !anySet(range[0], range[1])) {
+            fill(range[0], range[1], true);
+            onGrid.put(task, range);
+        } else {
+            offGrid.add(task);
+        }
+    }
+
+    public void remove(Task task) {
+        long[] range = onGrid.remove(task);
+        if (range != null) {
+            fill(range[0], range[1], false);
+        } else {
+            offGrid.remove(task);
+        }
+    }
+
+    public void clear() {
+        onGrid.clear();
+        offGrid.clear();
+        Arrays.fill(days, null);
+    }
+
+    //задача лежит на сетке, и hasOverlap ответит по маске
+    public boolean isOnGrid(Task task) {
+        return task.getStartTime() != null && slotRange(task.getStartTime(), task.getDuration()) != null;
+    }
+
+    //только для задач на сетке: пересекается ли задача с какой-либо другой задачей индекса
+    public boolean hasOverlap(Task task) {
+        long[] range = slotRange(task.getStartTime(), task.getDuration());
+        if (range == null) {
+            throw new IllegalArgumentException("Задача не лежит на сетке слотов: " + task.getId());
+        }
+        long[] own = onGrid.get(task);
+        boolean busy;
+        if (own == null || own[1] <= range[0] || range[1] <= own[0]) {
+            busy = anySet(range[0], range[1]);
+        } else {
+            // свои слоты старой версии задачи не считаются
+            busy = anySet(range[0], Math.min(range[1], own[0])) || anySet(Math.max(range[0], own[1]), range[1]);
+        }
+        return busy || offGrid.hasOverlap(task);
+    }
+
+    // Самое раннее начало не раньше from, с которого свободно duration, или null, если сетка
+    // не может ответить так же, как TimeIntervalIndex: from или duration не по сетке,
+    // либо есть задачи вне сетки (тогда свободное место может начинаться не на границе слота)
+    public LocalDateTime findEarliestGap(LocalDateTime from, Duration duration) {
+        if (offGrid.size() > 0) {
+            return null;
+        }
+        long[] range = slotRange(from, duration);
+        if (range == null) {
+            return null;
+        }
+        long length = range[1] - range[0];
+        long free = nextClear(range[0]);
+        while (free < totalSlots) {
+            long busy = nextSet(free);
+            if (busy - free >= length || busy >= totalSlots) {
+                return toTime(free); // после горизонта задач нет, серия у его конца продолжается
+            }
+            free = nextClear(busy);
+        }
+        return toTime(totalSlots);
+    }
+
+    //слоты [первый, после последнего) интервала, если он по сетке и целиком в горизонте, иначе null
+    private long[] slotRange(LocalDateTime start, Duration duration) {
+        if (duration == null || duration.isNegative() || duration.isZero()
+                || duration.getNano() != 0 || duration.getSeconds() % slotSeconds != 0) {
+            return null;
+        }
+        long day = start.toLocalDate().toEpochDay() - firstDay.toEpochDay();
+        LocalTime time = start.toLocalTime();
+        if (day < 0 || day >= days.length || time.getNano() != 0 || time.toSecondOfDay() % slotSeconds != 0) {
+            return null;
+        }
+        long first = day * slotsPerDay + time.toSecondOfDay() / slotSeconds;
+        long end = first + duration.getSeconds() / slotSeconds;
+        return end <= totalSlots ? new long[]{first, end} : null;
+    }
+
+    private LocalDateTime toTime(long slot) {
+        return firstDay.plusDays(slot / slotsPerDay).atStartOfDay()
+                .plusSeconds(slot % slotsPerDay * slotSeconds);
+    }
+
+    //есть ли занятый слот в [from, to)
+    private boolean anySet(long from, long to) {
+        while (from < to) {
+            int day = (int) (from / slotsPerDay);
+            int start = (int) (from - (long) day * slotsPerDay);
+            int end = (int) Math.min(slotsPerDay, to - (long) day * slotsPerDay);
+            if (days[day] != null && anySet(days[day], start, end)) {
+                return true;
+            }
+            from += end - start;
+        }
+        return false;
+    }
+
+    private void fill(long from, long to, boolean value) {
+        while (from < to) {
+            int day = (int) (from / slotsPerDay);
+            int start = (int) (from - (long) day * slotsPerDay);
+            int end = (int) Math.min(slotsPerDay, to - (long) day * slotsPerDay);
+            if (days[day] == null) {
+                days[day] = new long[wordsPerDay];
+            }
+            fill(days[day], start, end, value);
+            from += end - start;
+        }
+    }
+
+    //первый свободный слот начиная с from или totalSlots
+    private long nextClear(long from) {
+        while (from < totalSlots) {
+            int day = (int) (from / slotsPerDay);
+            int start = (int) (from - (long) day * slotsPerDay);
+            if (days[day] == null) {
+                return from;
+            }
+            int found = nextBit(days[day], start, true);
+            if (found < slotsPerDay) {
+                return (long) day * slotsPerDay + found;
+            }
+            from = (long) (day + 1) * slotsPerDay;
+        }
+        return totalSlots;
+    }
+
+    //первый занятый слот начиная с from или totalSlots
+    private long nextSet(long from) {
+        while (from < totalSlots) {
+            int day = (int) (from / slotsPerDay);
+            int start = (int) (from - (long) day * slotsPerDay);
+            if (days[day] != null) {
+                int found = nextBit(days[day], start, false);
+                if (found < slotsPerDay) {
+                    return (long) day * slotsPerDay + found;
+                }
+            }
+            from = (long) (day + 1) * slotsPerDay;
+        }
+        return totalSlots;
+    }
+
+    // Операции над битами одного дня, from < to
+    private static boolean anySet(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            return (words[first] & firstMask & lastMask) != 0;
+        }
+        if ((words[first] & firstMask) != 0) {
+            return true;
+        }
+        for (int i = first + 1; i < last; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+        return (words[last] & lastMask) != 0;
+    }
+
+    private static void fill(long[] words, int from, int to, boolean value) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int i = first; i <= last; i++) {
+            long mask = -1L;
+            if (i == first) {
+                mask &= -1L << from;
+            }
+            if (i == last) {
+                mask &= -1L >>> -to;
+            }
+            words[i] = value ? words[i] | mask : words[i] & ~mask;
+        }
+    }
+
+    //номер первого свободного (clear) или занятого бита не раньше from; за концом маски - не меньше slotsPerDay
+    private static int nextBit(long[] words, int from, boolean clear) {
+        int index = from >>> 6;
+        long word = (clear ? ~words[index] : words[index]) & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return words.length << 6;
+            }
+            word = clear ? ~words[index] : words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Чтение и запись снимка в любом из форматов.
+// Формат при чтении определяется по заголовку файла, запись идёт во временный файл
+// с последующим атомарным переименованием.
+// Конвертер: java ru.yandex.taskmanager.manager.SnapshotFiles <откуда> <куда> <CSV|BINARY|BINARY_DEFLATE>
+public final class SnapshotFiles {
+
+    private SnapshotFiles() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Использование: SnapshotFiles <откуда> <куда> <CSV|BINARY|BINARY_DEFLATE>");
+            return;
+        }
+        convert(Path.of(args[0]), Path.of(args[1]), SnapshotFormat.valueOf(args[2]));
+    }
+
+    public static void convert(Path from, Path to, SnapshotFormat format) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        read(from, tasks::add);
+        writeAtomically(to, tasks, format);
+    }
+
+    // Записи снимка по порядку; ошибочные записи CSV пропускаются
+    public static void read(Path file, Consumer<Task> consumer) throws IOException {
+        if (BinarySnapshot.isBinary(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                BinarySnapshot.read(in, consumer);
+            }
+            return;
+        }
+        try (TaskCsvReader reader = new TaskCsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            while (true) {
+                Task task;
+                try {
+                    task = reader.next();
+                } catch (ManagerSaveException e) {
+                    System.err.println("Ошибка в снимке: " + e.getMessage());
+                    continue;
+                }
+                if (task == null) {
+                    return;
+                }
+                consumer.accept(task);
+            }
+        }
+    }
+
+    public static void write(OutputStream out, Iterable<? extends Task> tasks, SnapshotFormat format)
+            throws IOException {
+        if (format == SnapshotFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(TaskCsvFormat.HEADER);
+            writer.write('\n');
+            for (Task task : tasks) {
+                writer.write(TaskCsvFormat.format(task));
+                writer.write('\n');
+            }
+            writer.flush();
+            return;
+        }
+        BinarySnapshot.write(out, tasks, format == SnapshotFormat.BINARY_DEFLATE);
+    }
+
+    public static void writeAtomically(Path file, Iterable<? extends Task> tasks, SnapshotFormat format)
+            throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            write(out, tasks, format);
+        }
+        moveAtomically(temp, file);
+    }
+
+    // Снимок сжатия: данные сбрасываются на диск до переименования, поэтому после
+    // возврата можно удалять журнал, записи которого в него вошли
+    public static void writeAtomically(Path file, byte[] snapshot) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        moveAtomically(temp, file);
+    }
+
+    private static void moveAtomically(Path temp, Path file) throws IOException {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.taskmanager.manager;
+
+public enum SnapshotFormat {
+    CSV,           // текстовый снимок, см. TaskCsvFormat
+    BINARY,        // двоичный снимок, см. BinarySnapshot
+    BINARY_DEFLATE // двоичный снимок с блоками, сжатыми Deflate
+}
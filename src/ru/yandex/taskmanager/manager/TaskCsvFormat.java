@@ -0,0 +1,97 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+// Строка снимка: id,type,name,status,description,epic,duration,startTime,endTime.
+// Поля с запятой, кавычкой, \ или переводом строки пишутся в кавычках,
+// поэтому каждая запись всегда занимает одну физическую строку.
+public final class TaskCsvFormat {
+    public static final String HEADER = "id,type,name,status,description,epic,duration,startTime,endTime";
+
+    private TaskCsvFormat() {
+    }
+
+    public static String format(Task task) {
+        if (task == null || task.getStatus() == null) {
+            return "";
+        }
+        StringBuilder line = new StringBuilder(64);
+        line.append(task.getId()).append(',')
+                .append(typeOf(task)).append(',');
+        appendField(line, task.getName());
+        line.append(',').append(task.getStatus().name()).append(',');
+        appendField(line, task.getDescription());
+        line.append(',');
+        if (task instanceof Subtask subtask) {
+            line.append(subtask.getEpicId()); //запись epicid в файл
+        }
+        line.append(',');
+        if (task.getDuration() != null) {
+            line.append(task.getDuration().toMinutes());
+        }
+        line.append(',');
+        if (task.getStartTime() != null) {
+            line.append(task.getStartTime());
+        }
+        line.append(',');
+        if (task instanceof Epic epic && epic.getEndTime() != null) {
+            line.append(epic.getEndTime());
+        }
+        return line.toString();
+    }
+
+    public static Task parse(String line) {
+        try (TaskCsvReader reader = new TaskCsvReader(new StringReader(line))) {
+            Task task = reader.next();
+            if (task == null) {
+                throw new ManagerSaveException("Пустая строка задачи");
+            }
+            return task;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка разбора строки: " + line, e);
+        }
+    }
+
+    public static TypeTask typeOf(Task task) {
+        if (task instanceof Subtask) return TypeTask.SUBTASK;
+        if (task instanceof Epic) return TypeTask.EPIC;
+        return TypeTask.TASK;
+    }
+
+    static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\"\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\\' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
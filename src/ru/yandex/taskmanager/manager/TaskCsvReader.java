@@ -0,0 +1,338 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+// Потоковое чтение снимка задач за один проход.
+// Символы читаются блоками в char[], поля записи раскладываются в общий буфер
+// без split и промежуточных строк; строки создаются только для имени и описания.
+// Формат полей - как в TaskCsvFormat: поле в кавычках может содержать запятые,
+// "" внутри кавычек - кавычка, \n, \r и \\ - перевод строки, возврат каретки и \.
+public class TaskCsvReader implements Closeable {
+    private static final int FIELDS = 9;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Reader in;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    // поля текущей записи: символы подряд в record, границы в starts/ends
+    private char[] record = new char[256];
+    private int length;
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+    private int fieldCount;
+
+    private long line;
+    private long recordLine;
+
+    public TaskCsvReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[64 * 1024];
+    }
+
+    //чтение уже декодированного фрагмента без копирования
+    public TaskCsvReader(char[] chars, int from, int to) {
+        this.in = null;
+        this.buffer = chars;
+        this.position = from;
+        this.limit = to;
+    }
+
+    //номер строки, с которой началась последняя прочитанная запись
+    public long lineNumber() {
+        return recordLine;
+    }
+
+    // Следующая задача или null в конце файла. Заголовок и пустые строки пропускаются.
+    // Ошибочная запись - ManagerSaveException, после неё чтение продолжается со следующей
+    public Task next() throws IOException {
+        while (readRecord()) {
+            if (fieldCount == 1 && starts[0] == ends[0]) {
+                continue;
+            }
+            if (recordLine == 1 && fieldEquals(0, "id")) {
+                continue;
+            }
+            return parseRecord();
+        }
+        return null;
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            if (in == null) {
+                return -1;
+            }
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        int c = read();
+        if (c >= 0) {
+            position--;
+        }
+        return c;
+    }
+
+    private void append(char c) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = c;
+    }
+
+    private void endField() {
+        if (fieldCount < FIELDS) {
+            ends[fieldCount] = length;
+        }
+        fieldCount++;
+        if (fieldCount < FIELDS) {
+            starts[fieldCount] = length;
+        }
+    }
+
+    private boolean readRecord() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        line++;
+        recordLine = line;
+        length = 0;
+        fieldCount = 0;
+        starts[0] = 0;
+        boolean fieldStart = true;
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    endField();
+                    throw new ManagerSaveException("Незакрытая кавычка в строке " + recordLine);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '\\') {
+                    int escaped = read();
+                    switch (escaped) {
+                        case 'n' -> append('\n');
+                        case 'r' -> append('\r');
+                        case '\\' -> append('\\');
+                        case -1 -> append('\\');
+                        default -> {
+                            append('\\');
+                            append((char) escaped);
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                endField();
+                return true;
+            } else if (c == ',') {
+                endField();
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c != '\r' || peek() != '\n') {
+                append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    private Task parseRecord() {
+        if (fieldCount < 5) {
+            throw new ManagerSaveException("Недостаточно данных в строке " + recordLine);
+        }
+        int id = parseInt(0);
+        TypeTask type = parseType();
+        String name = field(2);
+        TaskStatus status = parseStatus();
+        String description = field(4);
+        Duration duration = fieldCount > 6 ? parseDuration(6) : null;
+        LocalDateTime startTime = fieldCount > 7 ? parseDateTime(7) : null;
+
+        return switch (type) {
+            case TASK -> new Task(id, name, description, status, duration, startTime);
+            case SUBTASK -> new Subtask(id, name, description, status, parseInt(5), duration, startTime);
+            case EPIC -> new Epic(id, name, description, status, duration, startTime,
+                    fieldCount > 8 ? parseDateTime(8) : null);
+        };
+    }
+
+    private String field(int index) {
+        return new String(record, starts[index], ends[index] - starts[index]);
+    }
+
+    private boolean fieldEquals(int index, String value) {
+        int start = starts[index];
+        if (ends[index] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (record[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TypeTask parseType() {
+        if (fieldEquals(1, "TASK")) return TypeTask.TASK;
+        if (fieldEquals(1, "SUBTASK")) return TypeTask.SUBTASK;
+        if (fieldEquals(1, "EPIC")) return TypeTask.EPIC;
+        throw new ManagerSaveException("Неизвестный тип задачи в строке " + recordLine + ": " + field(1));
+    }
+
+    private TaskStatus parseStatus() {
+        for (TaskStatus status : STATUSES) {
+            if (fieldEquals(3, status.name())) {
+                return status;
+            }
+        }
+        throw new ManagerSaveException("Неизвестный статус в строке " + recordLine + ": " + field(3));
+    }
+
+    private int parseInt(int index) {
+        long value = parseLong(index);
+        if (value != (int) value) {
+            throw new ManagerSaveException("Неверное число в строке " + recordLine + ": " + field(index));
+        }
+        return (int) value;
+    }
+
+    private long parseLong(int index) {
+        int start = starts[index];
+        int end = ends[index];
+        boolean negative = start < end && record[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            throw new ManagerSaveException("Неверное число в строке " + recordLine + ": " + field(index));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new ManagerSaveException("Неверное число в строке " + recordLine + ": " + field(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private Duration parseDuration(int index) {
+        if (starts[index] == ends[index]) {
+            return null;
+        }
+        try {
+            return Duration.ofMinutes(parseLong(index));
+        } catch (ManagerSaveException e) {
+            System.err.println("Неверный формат продолжительности: " + field(index));
+            return null;
+        }
+    }
+
+    // Быстрый разбор вида LocalDateTime.toString(): yyyy-MM-ddTHH:mm[:ss[.n]],
+    // остальное - через LocalDateTime.parse
+    private LocalDateTime parseDateTime(int index) {
+        int start = starts[index];
+        int end = ends[index];
+        if (start == end) {
+            return null;
+        }
+        int length = end - start;
+        if (length >= 16 && record[start + 4] == '-' && record[start + 7] == '-'
+                && record[start + 10] == 'T' && record[start + 13] == ':') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            int hour = digits(start + 11, 2);
+            int minute = digits(start + 14, 2);
+            int second = 0;
+            int nano = 0;
+            boolean valid = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0;
+            if (valid && length > 16) {
+                valid = length >= 19 && record[start + 16] == ':';
+                second = valid ? digits(start + 17, 2) : -1;
+                valid &= second >= 0;
+                if (valid && length > 19) {
+                    valid = record[start + 19] == '.' && length > 20 && length <= 29;
+                    int fraction = valid ? digits(start + 20, length - 20) : -1;
+                    valid &= fraction >= 0;
+                    if (valid) {
+                        nano = fraction;
+                        for (int i = length - 20; i < 9; i++) {
+                            nano *= 10;
+                        }
+                    }
+                }
+            }
+            if (valid) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+                } catch (RuntimeException e) {
+                    // некорректная дата - сообщение выдаст общий разбор ниже
+                }
+            }
+        }
+        try {
+            return LocalDateTime.parse(CharBuffer.wrap(record, start, length));
+        } catch (DateTimeParseException e) {
+            System.err.println("Неверный формат даты/времени: " + field(index));
+            return null;
+        }
+    }
+
+    //-1, если среди символов есть не цифра
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package ru.yandex.taskmanager.manager;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Журнал изменений: одна строка на изменение, только дозапись в конец.
+// При сжатии текущий журнал переименовывается в *.old и удаляется,
+// когда его содержимое попало в снимок на диске. Если *.old остался от сжатия,
+// не дописавшего снимок (сбой процесса), текущий журнал дописывается к нему:
+// записи в *.old ещё нигде больше не сохранены.
+// С политикой надёжности записи пишутся фоновым потоком: всё, что накопилось
+// за время предыдущей записи, уходит на диск одной операцией (group commit).
+public class TaskJournal implements Closeable {
+    private static final long LINGER_MILLIS = 2;
+
+    private final Path file;
+    private final Path rotated;
+    private final DurabilityPolicy policy;
+    private FileChannel channel;
+    private long size;
+
+    // состояние фоновой записи, защищено lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private List<String> pending = new ArrayList<>();
+    private long appendedSeq;
+    private long writtenSeq;
+    private long durableSeq;
+    private boolean writing;
+    private boolean forceRequested;
+    private boolean closed;
+    private IOException failure;
+    private Thread writer;
+
+    public TaskJournal(Path file) {
+        this(file, null);
+    }
+
+    //policy == null - синхронная запись в вызывающем потоке
+    public TaskJournal(Path file, DurabilityPolicy policy) {
+        this.file = file;
+        this.rotated = file.resolveSibling(file.getFileName() + ".old");
+        this.policy = policy;
+        try {
+            this.size = Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала", e);
+        }
+    }
+
+    public void append(String record) {
+        if (policy == null) {
+            try {
+                size += write(List.of(record));
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка записи в журнал", e);
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            checkFailure();
+            if (writer == null) {
+                startWriter();
+            }
+            pending.add(record);
+            long seq = ++appendedSeq;
+            size += record.length() + 1;
+            changed.signalAll();
+            if (policy.type() == DurabilityPolicy.Type.SYNC) {
+                awaitSeq(seq, true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //все добавленные записи переданы ОС
+    public void flush() {
+        if (policy == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            awaitSeq(appendedSeq, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //все добавленные записи сброшены на диск, независимо от политики
+    public void awaitDurable() {
+        lock.lock();
+        try {
+            if (policy == null) {
+                force();
+                return;
+            }
+            forceRequested = true;
+            changed.signalAll();
+            awaitSeq(appendedSeq, true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сброса журнала на диск", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSeq(long seq, boolean durable) {
+        boolean interrupted = false;
+        while ((durable ? durableSeq : writtenSeq) < seq && failure == null && writer != null) {
+            try {
+                changed.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new ManagerSaveException("Ошибка фоновой записи журнала", failure);
+        }
+    }
+
+    private void startWriter() {
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        long interval = policy.fsyncInterval().toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                boolean forceDue = policy.type() == DurabilityPolicy.Type.PERIODIC
+                        && writtenSeq > durableSeq && System.nanoTime() - lastForce >= interval;
+                if (pending.isEmpty() && !forceRequested && !forceDue) {
+                    if (closed) {
+                        return;
+                    }
+                    if (policy.type() == DurabilityPolicy.Type.PERIODIC && writtenSeq > durableSeq) {
+                        changed.awaitNanos(Math.max(interval - (System.nanoTime() - lastForce), 1));
+                    } else {
+                        changed.await();
+                    }
+                    continue;
+                }
+                if (!pending.isEmpty() && policy.type() != DurabilityPolicy.Type.SYNC && !closed) {
+                    // даём накопиться пачке
+                    changed.await(LINGER_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                List<String> batch = pending;
+                pending = new ArrayList<>();
+                long batchSeq = appendedSeq;
+                boolean force = policy.type() == DurabilityPolicy.Type.SYNC || forceRequested || forceDue;
+                forceRequested = false;
+                writing = true;
+                lock.unlock();
+                try {
+                    if (!batch.isEmpty()) {
+                        write(batch);
+                    }
+                    if (force) {
+                        force();
+                        lastForce = System.nanoTime();
+                    }
+                } catch (IOException e) {
+                    lock.lock();
+                    failure = e;
+                    writing = false;
+                    changed.signalAll();
+                    return;
+                }
+                lock.lock();
+                writing = false;
+                writtenSeq = batchSeq;
+                if (force) {
+                    durableSeq = batchSeq;
+                }
+                changed.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    //одна операция записи на всю пачку, возвращает число байт
+    private long write(List<String> records) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String record : records) {
+            text.append(record).append('\n');
+        }
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(text.toString());
+        int bytes = buffer.remaining();
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return bytes;
+    }
+
+    private void force() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    //примерный размер журнала в байтах
+    public long size() {
+        return size;
+    }
+
+    //закрывает текущий журнал и начинает новый
+    public void rotate() {
+        lock.lock();
+        try {
+            awaitIdle();
+            closeChannel();
+            if (Files.exists(file)) {
+                if (Files.exists(rotated)) {
+                    appendToRotated();
+                    Files.delete(file);
+                } else {
+                    Files.move(file, rotated);
+                }
+            }
+            size = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка ротации журнала", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Сбой посреди дописывания оставит оба файла, и при загрузке начало журнала
+    // применится дважды - записи PUT, DEL и CLEAR от этого не меняют итог
+    private void appendToRotated() throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(rotated, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            target.position(target.size());
+            if (endsWithoutNewline(target)) {
+                // недописанная строка при сбое не должна склеиться с первой записью журнала
+                target.write(ByteBuffer.wrap(new byte[]{'\n'}));
+            }
+            long position = 0;
+            long length = source.size();
+            while (position < length) {
+                position += source.transferTo(position, length - position, target);
+            }
+            target.force(false);
+        }
+    }
+
+    private static boolean endsWithoutNewline(FileChannel channel) throws IOException {
+        long length = channel.size();
+        if (length == 0) {
+            return false;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, length - 1);
+        return last.get(0) != '\n';
+    }
+
+    private void awaitIdle() {
+        awaitSeq(appendedSeq, false);
+        while (writing && failure == null) {
+            changed.awaitUninterruptibly();
+        }
+    }
+
+    //вызывать только после того, как снимок с записями *.old сброшен на диск
+    public void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotated);
+    }
+
+    //записи старого и текущего журнала по порядку
+    public void replay(Consumer<String> consumer) {
+        for (Path path : new Path[]{rotated, file}) {
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        consumer.accept(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка чтения журнала", e);
+            }
+        }
+    }
+
+    //дописывает накопленное и останавливает фоновый поток
+    @Override
+    public void close() throws IOException {
+        Thread stopped;
+        lock.lock();
+        try {
+            awaitIdle();
+            closed = true;
+            changed.signalAll();
+            stopped = writer;
+        } finally {
+            lock.unlock();
+        }
+        if (stopped != null) {
+            try {
+                stopped.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            writer = null;
+            closed = false;
+            force();
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -4,14 +4,41 @@ import ru.yandex.taskmanager.model.Epic;
 import ru.yandex.taskmanager.model.Subtask;
 import ru.yandex.taskmanager.model.Task;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskManager {
     List<Task> getPrioritizedTasks();
 
+    //задачи, пересекающие окно [from, to), в порядке времени начала
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    //не больше limit задач, начинающихся не раньше time, в порядке времени начала
+    List<Task> getTasksStartingAfter(LocalDateTime time, int limit);
+
+    //самое раннее время не раньше from, с которого свободен промежуток длиной duration
+    LocalDateTime findEarliestSlot(LocalDateTime from, Duration duration);
+
+    // Ставит задачи и подзадачи пачки по порядку в самые ранние свободные промежутки
+    // не раньше from и сохраняет их; у каждой должна быть длительность
+    List<Task> autoSchedule(List<? extends Task> batch, LocalDateTime from);
+
+    //пересекается ли задача по времени с уже добавленными
+    boolean hasTimeOverlap(Task task);
+
+    // Проверка пересечения и сохранение одной операцией: задача с id 0 создаётся,
+    // иначе обновляется. false - задача пересекается с другими, ничего не изменено
+    boolean saveTaskIfNoOverlap(Task task);
+
+    boolean saveSubtaskIfNoOverlap(Subtask subtask);
+
     // методы  Task
     List<Task> getAllTasks();
 
+    //страница по возрастанию id: не больше limit задач с id больше afterId
+    List<Task> getTasksPage(int afterId, int limit);
+
     void deleteAllTasks();
 
     Task getTaskId(int id) throws NotFoundException;
@@ -25,6 +52,8 @@ public interface TaskManager {
     // методы Subtask
     List<Subtask> getAllSubTasks();
 
+    List<Subtask> getSubtasksPage(int afterId, int limit);
+
     void deleteAllSubTask();
 
     Subtask getSubTaskId(int id) throws NotFoundException;
@@ -38,6 +67,8 @@ public interface TaskManager {
     // методы Epic
     List<Epic> getAllEpics();
 
+    List<Epic> getEpicsPage(int afterId, int limit);
+
     void deleteAllEpics();
 
     Epic getEpicId(int id) throws NotFoundException;
@@ -54,5 +85,23 @@ public interface TaskManager {
     //история просмотра
     List<Task> getHistory();
 
+    //страница истории от последних просмотров к давним: limit задач после offset последних
+    List<Task> getHistory(int offset, int limit);
+
+    //задача любого типа по id, без записи в историю; null, если нет
+    Task findById(int id);
+
+    //самые часто запрашиваемые по id задачи, от самой частой; не больше limit
+    List<Task> getHotTasks(int limit);
+
+    // Версии изменений (см. ModificationVersions): растут с каждым изменением
+    long getVersion();
+
+    //версия коллекции задач, подзадач или эпиков
+    long getVersion(TypeTask type);
+
+    //версия задачи любого типа; 0, если задачи нет
+    long getEntityVersion(int id);
+
 
 }
\ No newline at end of file
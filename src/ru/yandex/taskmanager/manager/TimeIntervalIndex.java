@@ -0,0 +1,340 @@
+package ru.yandex.taskmanager.manager;
+
+import ru.yandex.taskmanager.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Индекс интервалов [startTime, endTime) задач: AVL-дерево по времени начала,
+// в каждом узле хранится максимальное время окончания в поддереве.
+// Проверка пересечения и поиск по окну - O(log n) (+ k найденных задач).
+// Для поиска свободного места узел ещё помнит крайние начала поддерева и
+// самый большой промежуток между его задачами (по порядку начала, от максимального
+// окончания предыдущих до начала следующей). Поддеревья без подходящего
+// промежутка пропускаются целиком, поэтому поиск спускается по одному пути.
+public class TimeIntervalIndex {
+    private static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private final Map<Task, Node> nodes = new HashMap<>();
+    private Node root;
+    private long nextSeq;
+
+    private static class Node {
+        final Task task;
+        final long start;
+        final long end;
+        final long seq; // порядок вставки, различает задачи с одинаковым началом
+        long maxEnd;
+        long minStart;
+        long maxStart;
+        long maxGap; // при пересекающихся задачах - оценка сверху
+        int height;
+        Node left;
+        Node right;
+
+        Node(Task task, long start, long end, long seq) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.maxEnd = end;
+            this.minStart = start;
+            this.maxStart = start;
+            this.maxGap = Long.MIN_VALUE;
+            this.height = 1;
+        }
+    }
+
+    //время в микросекундах от эпохи
+    static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000L),
+                (int) Math.floorMod(key, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long endKey(Task task, long start) {
+        LocalDateTime end = task.getEndTime();
+        return end != null ? toKey(end) : start;
+    }
+
+    public void add(Task task) {
+        if (task.getStartTime() == null) {
+            return;
+        }
+        remove(task);
+        long start = toKey(task.getStartTime());
+        Node node = new Node(task, start, endKey(task, start), nextSeq++);
+        root = insert(root, node);
+        nodes.put(task, node);
+    }
+
+    public void remove(Task task) {
+        Node node = nodes.remove(task);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    public void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(Task task) {
+        return nodes.containsKey(task);
+    }
+
+    //пересекается ли задача с какой-либо другой задачей индекса
+    public boolean hasOverlap(Task task) {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        long start = toKey(task.getStartTime());
+        return findAny(root, start, endKey(task, start), task) != null;
+    }
+
+    //задачи, пересекающие окно [from, to), в порядке времени начала
+    public List<Task> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> result = new ArrayList<>();
+        collect(root, toKey(from), toKey(to), result);
+        return result;
+    }
+
+    //не больше limit задач, начинающихся не раньше time, в порядке времени начала
+    public List<Task> findStartingFrom(LocalDateTime time, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, 1024));
+        collectFrom(root, toKey(time), limit, result);
+        return result;
+    }
+
+    // Самое раннее время s не раньше from, при котором [s, s + duration)
+    // не пересекается ни с одной задачей индекса
+    public LocalDateTime findEarliestGap(LocalDateTime from, Duration duration) {
+        long start = toKey(from);
+        long length = (duration.toNanos() + 999) / 1_000;
+        long[] frontier = {Long.MIN_VALUE};
+        long found = earliestGap(root, start, length, frontier);
+        return fromKey(found != NOT_FOUND ? found : Math.max(frontier[0], start));
+    }
+
+    //все задачи в порядке времени начала
+    public List<Task> toList() {
+        List<Task> result = new ArrayList<>(nodes.size());
+        inOrder(root, result);
+        return result;
+    }
+
+    private static boolean overlaps(Node node, long start, long end) {
+        return start < node.end && node.start < end;
+    }
+
+    private Node findAny(Node node, long start, long end, Task excluded) {
+        if (node == null || node.maxEnd <= start) {
+            return null;
+        }
+        Node found = findAny(node.left, start, end, excluded);
+        if (found != null) {
+            return found;
+        }
+        if (node.start >= end) {
+            return null;
+        }
+        if (overlaps(node, start, end) && !node.task.equals(excluded)) {
+            return node;
+        }
+        return findAny(node.right, start, end, excluded);
+    }
+
+    private void collect(Node node, long start, long end, List<Task> result) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (node.start >= end) {
+            return;
+        }
+        if (overlaps(node, start, end)) {
+            result.add(node.task);
+        }
+        collect(node.right, start, end, result);
+    }
+
+    // обход по порядку с отсечением левых поддеревьев, которые начинаются раньше start;
+    // заходим только в O(log n) узлов сверх найденных
+    private void collectFrom(Node node, long start, int limit, List<Task> result) {
+        if (node == null || result.size() >= limit) {
+            return;
+        }
+        if (node.start >= start) {
+            collectFrom(node.left, start, limit, result);
+            if (result.size() >= limit) {
+                return;
+            }
+            result.add(node.task);
+        }
+        collectFrom(node.right, start, limit, result);
+    }
+
+    // Обход по порядку начала; frontier[0] - максимальное окончание уже пройденных задач.
+    // Поддерево пропускается, если перед ним места нет, а внутри нет промежутка
+    // длиной length или все его задачи начинаются раньше, чем from + length
+    private static long earliestGap(Node node, long from, long length, long[] frontier) {
+        if (node == null) {
+            return NOT_FOUND;
+        }
+        long free = Math.max(frontier[0], from);
+        if (node.minStart - free >= length) {
+            return free;
+        }
+        if (node.maxGap < length || node.maxStart < from + length) {
+            frontier[0] = Math.max(frontier[0], node.maxEnd);
+            return NOT_FOUND;
+        }
+        long found = earliestGap(node.left, from, length, frontier);
+        if (found != NOT_FOUND) {
+            return found;
+        }
+        free = Math.max(frontier[0], from);
+        if (node.start - free >= length) {
+            return free;
+        }
+        frontier[0] = Math.max(frontier[0], node.end);
+        return earliestGap(node.right, from, length, frontier);
+    }
+
+    private void inOrder(Node node, List<Task> result) {
+        if (node == null) {
+            return;
+        }
+        inOrder(node.left, result);
+        result.add(node.task);
+        inOrder(node.right, result);
+    }
+
+    //операции AVL-дерева
+    private static int compare(Node a, Node b) {
+        int byStart = Long.compare(a.start, b.start);
+        return byStart != 0 ? byStart : Long.compare(a.seq, b.seq);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        long gap = Long.MIN_VALUE;
+        long before = node.end; // максимальное окончание левого поддерева и самого узла
+        node.minStart = node.start;
+        node.maxStart = node.start;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+            gap = Math.max(node.left.maxGap, node.start - node.left.maxEnd);
+            before = Math.max(before, node.left.maxEnd);
+            node.minStart = node.left.minStart;
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+            gap = Math.max(gap, Math.max(node.right.maxGap, node.right.minStart - before));
+            node.maxStart = node.right.maxStart;
+        }
+        node.maxEnd = maxEnd;
+        node.maxGap = gap;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int diff = height(node.left) - height(node.right);
+        if (diff > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (diff < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(removed, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, removed);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = deleteMin(node.right);
+            min.left = node.left;
+            return balance(min);
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+}
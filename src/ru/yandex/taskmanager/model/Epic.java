@@ -1,41 +1,53 @@
 package ru.yandex.taskmanager.model;
 
+import ru.yandex.taskmanager.util.IntIndexedSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds;
+    // Менеджер меняет список под своей блокировкой эпика, а JSON-ответ читает его без неё,
+    // поэтому изменения и копия для чтения дополнительно синхронизированы на самом эпике
+    private final IntIndexedSet subtaskIds;
     private LocalDateTime endTime;
 
     public Epic(int id, String name, String description, TaskStatus status) {
         super(id, name, description, status);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new IntIndexedSet();
     }
 
 
     public Epic(int id, String name, String description, TaskStatus status,
                 Duration duration, LocalDateTime startTime, LocalDateTime endTime) {
         super(id, name, description, status, duration, startTime);
-        this.subtaskIds = new ArrayList<>();
+        this.subtaskIds = new IntIndexedSet();
         this.endTime = endTime;
     }
 
 
-    public List<Integer> getSubtaskIds() {
+    public IntIndexedSet getSubtaskIds() {
 
         return subtaskIds;
     }
 
-    public void addSubtask(int id) {
+    public synchronized void addSubtask(int id) {
 
         subtaskIds.add(id);
     }
 
-    public void removeSubtask(int id) {
+    public synchronized void removeSubtask(int id) {
+
+        subtaskIds.remove(id);
+    }
+
+    public synchronized void clearSubtasks() {
+        subtaskIds.clear();
+    }
 
-        subtaskIds.remove(Integer.valueOf(id));
+    //согласованная копия id подзадач, её можно читать параллельно с изменениями
+    public synchronized int[] subtaskIdsSnapshot() {
+        return subtaskIds.toArray();
     }
 
     @Override
@@ -45,7 +57,7 @@ public class Epic extends Task {
                 ", name='" + getName() + '\'' +
                 ", description='" + getDescription() + '\'' +
                 ", status=" + getStatus() +
-                ", subtaskIds=" + subtaskIds +
+                ", subtaskIds=" + Arrays.toString(subtaskIdsSnapshot()) +
                 '}';
     }
 
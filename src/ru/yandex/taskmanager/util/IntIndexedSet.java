@@ -0,0 +1,143 @@
+package ru.yandex.taskmanager.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Множество int без упаковки: значения лежат подряд в int[],
+// позиция каждого значения ищется по хеш-таблице с открытой адресацией.
+// add, contains и remove - O(1); при удалении на место удалённого
+// переносится последний элемент, поэтому порядок обхода может меняться.
+public class IntIndexedSet {
+    private int[] values;
+    private int[] slots; // позиция значения + 1, 0 - пустая ячейка
+    private int size;
+    private int mask;
+
+    public IntIndexedSet() {
+        this(4);
+    }
+
+    public IntIndexedSet(int expectedSize) {
+        values = new int[Math.max(expectedSize, 1)];
+        slots = new int[IntObjectHashMap.tableSizeFor(values.length * 2)];
+        mask = slots.length - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int position) {
+        if (position >= size) {
+            throw new IndexOutOfBoundsException("Позиция " + position + ", размер " + size);
+        }
+        return values[position];
+    }
+
+    private int slotOf(int value) {
+        int slot = IntObjectHashMap.hash(value) & mask;
+        while (slots[slot] != 0) {
+            if (values[slots[slot] - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return slotOf(value) >= 0;
+    }
+
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            insertSlot(value, size);
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = slotOf(value);
+        if (slot < 0) {
+            return false;
+        }
+        int position = slots[slot] - 1;
+        clearSlot(slot);
+        int last = values[--size];
+        if (position != size) {
+            values[position] = last;
+            slots[slotOf(last)] = position + 1;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void insertSlot(int value, int positionPlusOne) {
+        int slot = IntObjectHashMap.hash(value) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = positionPlusOne;
+    }
+
+    private void clearSlot(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (slots[slot] == 0) {
+                break;
+            }
+            int home = IntObjectHashMap.hash(values[slots[slot] - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                slots[gap] = slots[slot];
+                gap = slot;
+            }
+        }
+        slots[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            insertSlot(values[i], i + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.taskmanager.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// IntIndexedSet в JSON - обычный массив чисел, как раньше List<Integer>
+public class IntIndexedSetAdapter extends TypeAdapter<IntIndexedSet> {
+    @Override
+    public void write(JsonWriter out, IntIndexedSet set) throws IOException {
+        if (set == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int i = 0; i < set.size(); i++) {
+            out.value(set.get(i));
+        }
+        out.endArray();
+    }
+
+    @Override
+    public IntIndexedSet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return new IntIndexedSet();
+        }
+        IntIndexedSet set = new IntIndexedSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            set.add(in.nextInt());
+        }
+        in.endArray();
+        return set;
+    }
+}
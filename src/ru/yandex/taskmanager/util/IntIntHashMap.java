@@ -0,0 +1,122 @@
+package ru.yandex.taskmanager.util;
+
+import java.util.Arrays;
+
+// Хеш-таблица int -> int с открытой адресацией, как IntObjectHashMap.
+// Значение хранится со сдвигом на 1, 0 в массиве значений - пустая ячейка,
+// поэтому отрицательные значения хранить нельзя. Размер задаётся заранее
+// и после этого put/remove не выделяют память, пока таблица не переполнится.
+public class IntIntHashMap {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values; // значение + 1
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(IntObjectHashMap.tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR)));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(int key) {
+        int index = IntObjectHashMap.hash(key) & mask;
+        while (values[index] != 0) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    //-1, если ключа нет
+    public int get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? -1 : values[index] - 1;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Отрицательное значение: " + value);
+        }
+        int index = IntObjectHashMap.hash(key) & mask;
+        while (values[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value + 1;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value + 1;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    //прежнее значение или -1
+    public int remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return -1;
+        }
+        int old = values[index] - 1;
+        shiftBack(index);
+        size--;
+        return old;
+    }
+
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == 0) {
+                break;
+            }
+            int home = IntObjectHashMap.hash(keys[index]) & mask;
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        values[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int index = IntObjectHashMap.hash(oldKeys[i]) & mask;
+                while (values[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.taskmanager.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// IntObjectHashMap, который дополнительно помнит ключи по возрастанию.
+// get остаётся хеш-операцией, put и remove нового или удаляемого ключа - O(log n),
+// а выдача страницы по ключам стоит O(log n + размер страницы) без копирования всех значений.
+public class IntObjectSortedMap<V> extends IntObjectHashMap<V> {
+    private final IntSortedSet keys = new IntSortedSet();
+
+    @Override
+    public V put(int key, V value) {
+        V old = super.put(key, value);
+        if (old == null && value != null) {
+            keys.add(key);
+        }
+        return old;
+    }
+
+    @Override
+    public V remove(int key) {
+        V old = super.remove(key);
+        if (old != null) {
+            keys.remove(key);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        keys.clear();
+    }
+
+    //не больше limit значений с ключами больше key, по возрастанию ключей
+    public List<V> valuesAfter(int key, int limit) {
+        int[] pageKeys = new int[Math.max(0, Math.min(limit, keys.size()))];
+        int count = keys.higher(key, pageKeys, pageKeys.length);
+        List<V> page = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            page.add(get(pageKeys[i]));
+        }
+        return page;
+    }
+}
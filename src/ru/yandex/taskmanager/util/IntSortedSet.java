@@ -0,0 +1,209 @@
+package ru.yandex.taskmanager.util;
+
+import java.util.Arrays;
+
+// Упорядоченное множество int: AVL-дерево на параллельных массивах int, без объектов узлов.
+// Добавление и удаление - O(log n) при любом порядке значений, выдача k значений
+// больше заданного - O(log n + k). Освобождённые узлы переиспользуются через список свободных.
+public class IntSortedSet {
+    private static final int NIL = -1;
+    private static final int MAX_HEIGHT = 64; // высота AVL-дерева из 2^31 узлов меньше 46
+
+    private int[] keys = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] heights = new int[16];
+    private int root = NIL;
+    private int size;
+    private int allocated; // узлов выдано с начала массивов
+    private int free = NIL; // свободные узлы, связанные через left
+    private boolean changed; // результат последней вставки или удаления
+    private int removedMin; // ключ узла, удалённого removeMin
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int value) {
+        int node = root;
+        while (node != NIL) {
+            if (value < keys[node]) {
+                node = left[node];
+            } else if (value > keys[node]) {
+                node = right[node];
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //false - значение уже было в множестве
+    public boolean add(int value) {
+        changed = false;
+        root = insert(root, value);
+        return changed;
+    }
+
+    public boolean remove(int value) {
+        changed = false;
+        root = delete(root, value);
+        return changed;
+    }
+
+    // Копирует в target по возрастанию не больше limit значений больше value,
+    // возвращает их количество
+    public int higher(int value, int[] target, int limit) {
+        int[] stack = new int[MAX_HEIGHT];
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] > value) {
+                stack[depth++] = node;
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        int count = 0;
+        while (depth > 0 && count < limit) {
+            node = stack[--depth];
+            target[count++] = keys[node];
+            for (node = right[node]; node != NIL; node = left[node]) {
+                stack[depth++] = node;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        root = NIL;
+        size = 0;
+        allocated = 0;
+        free = NIL;
+    }
+
+    private int insert(int node, int value) {
+        if (node == NIL) {
+            changed = true;
+            size++;
+            return allocate(value);
+        }
+        // ссылка на массив в left[node] = ... берётся до вызова, а вставка может его заменить
+        if (value < keys[node]) {
+            int child = insert(left[node], value);
+            left[node] = child;
+        } else if (value > keys[node]) {
+            int child = insert(right[node], value);
+            right[node] = child;
+        } else {
+            return node;
+        }
+        return balance(node);
+    }
+
+    private int delete(int node, int value) {
+        if (node == NIL) {
+            return NIL;
+        }
+        if (value < keys[node]) {
+            left[node] = delete(left[node], value);
+        } else if (value > keys[node]) {
+            right[node] = delete(right[node], value);
+        } else {
+            changed = true;
+            size--;
+            if (left[node] == NIL || right[node] == NIL) {
+                int child = left[node] != NIL ? left[node] : right[node];
+                release(node);
+                return child;
+            }
+            // узел с двумя детьми получает ключ следующего за ним значения
+            right[node] = removeMin(right[node]);
+            keys[node] = removedMin;
+        }
+        return balance(node);
+    }
+
+    private int removeMin(int node) {
+        if (left[node] == NIL) {
+            removedMin = keys[node];
+            int child = right[node];
+            release(node);
+            return child;
+        }
+        left[node] = removeMin(left[node]);
+        return balance(node);
+    }
+
+    private int balance(int node) {
+        update(node);
+        int factor = height(left[node]) - height(right[node]);
+        if (factor > 1) {
+            if (height(left[left[node]]) < height(right[left[node]])) {
+                left[node] = rotateLeft(left[node]);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(right[right[node]]) < height(left[right[node]])) {
+                right[node] = rotateRight(right[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(int node) {
+        heights[node] = Math.max(height(left[node]), height(right[node])) + 1;
+    }
+
+    private int height(int node) {
+        return node == NIL ? 0 : heights[node];
+    }
+
+    private int allocate(int value) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (allocated == keys.length) {
+                int capacity = allocated * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+            }
+            node = allocated++;
+        }
+        keys[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        heights[node] = 1;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = free;
+        free = node;
+    }
+}
@@ -2,15 +2,21 @@ package ru.yandex.taskmanager.util;
 
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+// Время в формате "yyyy-MM-dd HH:mm:ss". Формат фиксированной длины, поэтому цифры
+// пишутся и читаются по позициям без DateTimeFormatter; он остаётся только для
+// значений, которые в фиксированный вид не укладываются (год вне 0001-9999, лишние символы)
 public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int LENGTH = 19;
 
 
     public static class DurationAdapter extends TypeAdapter<Duration> {
@@ -25,7 +31,7 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
 
         @Override
         public Duration read(JsonReader in) throws IOException {
-            if (in.peek() == com.google.gson.stream.JsonToken.NULL) {
+            if (in.peek() == JsonToken.NULL) {
                 in.nextNull();
                 return null;
             }
@@ -39,12 +45,78 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
         if (value == null) {
             out.nullValue();
         } else {
-            out.value(formatter.format(value));
+            out.value(format(value));
         }
     }
 
     @Override
     public LocalDateTime read(JsonReader in) throws IOException {
-        return LocalDateTime.parse(in.nextString(), formatter);
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return parse(in.nextString());
+    }
+
+    public static String format(LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 1 || year > 9999) {
+            return FORMATTER.format(value);
+        }
+        char[] chars = new char[LENGTH];
+        digits(chars, 0, year, 4);
+        chars[4] = '-';
+        digits(chars, 5, value.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, value.getDayOfMonth(), 2);
+        chars[10] = ' ';
+        digits(chars, 11, value.getHour(), 2);
+        chars[13] = ':';
+        digits(chars, 14, value.getMinute(), 2);
+        chars[16] = ':';
+        digits(chars, 17, value.getSecond(), 2);
+        return new String(chars);
+    }
+
+    //некорректная дата - DateTimeParseException, как у DateTimeFormatter
+    public static LocalDateTime parse(String text) {
+        if (text.length() != LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != ' '
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return LocalDateTime.parse(text, FORMATTER);
+        }
+        int year = number(text, 0, 4);
+        int month = number(text, 5, 2);
+        int day = number(text, 8, 2);
+        int hour = number(text, 11, 2);
+        int minute = number(text, 14, 2);
+        int second = number(text, 17, 2);
+        if (year < 1 || (month | day | hour | minute | second) < 0) {
+            return LocalDateTime.parse(text, FORMATTER);
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return LocalDateTime.parse(text, FORMATTER); // та же ошибка, что и раньше
+        }
+    }
+
+    private static void digits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    //число из width цифр или -1
+    private static int number(String text, int offset, int width) {
+        int value = 0;
+        for (int i = offset; i < offset + width; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
     }
-}
\ No newline at end of file
+}
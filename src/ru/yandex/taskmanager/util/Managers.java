@@ -1,5 +1,7 @@
 package ru.yandex.taskmanager.util;
 
+import ru.yandex.taskmanager.manager.BoundedHistoryManager;
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
 import ru.yandex.taskmanager.manager.HistoryManager;
 import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
 import ru.yandex.taskmanager.manager.InMemoryTaskManager;
@@ -11,7 +13,17 @@ public class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    //для многопоточного доступа
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(getDefaultHistory());
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    //история из последних capacity просмотров
+    public static HistoryManager getBoundedHistory(int capacity) {
+        return new BoundedHistoryManager(capacity);
+    }
 }
\ No newline at end of file
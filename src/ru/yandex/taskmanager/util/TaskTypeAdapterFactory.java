@@ -0,0 +1,165 @@
+package ru.yandex.taskmanager.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.yandex.taskmanager.manager.TypeTask;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// JSON задач, подзадач и эпиков без рефлексии: поля пишутся и читаются вручную.
+// Тип объекта - в поле "type" (TASK, SUBTASK, EPIC). Объект без "type" читается
+// как запрошенный класс, поэтому запросы старых клиентов разбираются как раньше.
+// Поля с null, как и при рефлексии, не пишутся
+public class TaskTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw != Task.class && raw != Subtask.class && raw != Epic.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new TaskAdapter(raw).nullSafe();
+    }
+
+    private static class TaskAdapter extends TypeAdapter<Task> {
+        private final Class<?> requested;
+
+        TaskAdapter(Class<?> requested) {
+            this.requested = requested;
+        }
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            out.beginObject();
+            out.name("type").value(typeOf(task).name());
+            out.name("id").value(task.getId());
+            if (task.getName() != null) {
+                out.name("name").value(task.getName());
+            }
+            if (task.getDescription() != null) {
+                out.name("description").value(task.getDescription());
+            }
+            if (task.getStatus() != null) {
+                out.name("status").value(task.getStatus().name());
+            }
+            Duration duration = task.getDuration();
+            if (duration != null) {
+                out.name("duration").value(duration.toSeconds());
+            }
+            LocalDateTime startTime = task.getStartTime();
+            if (startTime != null) {
+                out.name("startTime").value(LocalDateTimeAdapter.format(startTime));
+            }
+            if (task instanceof Subtask subtask) {
+                out.name("epicId").value(subtask.getEpicId());
+            } else if (task instanceof Epic epic) {
+                out.name("subtaskIds").beginArray();
+                for (int subtaskId : epic.subtaskIdsSnapshot()) {
+                    out.value(subtaskId);
+                }
+                out.endArray();
+                if (epic.getEndTime() != null) {
+                    out.name("endTime").value(LocalDateTimeAdapter.format(epic.getEndTime()));
+                }
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            TypeTask type = null;
+            int id = 0;
+            String name = null;
+            String description = null;
+            TaskStatus status = null;
+            Duration duration = null;
+            LocalDateTime startTime = null;
+            LocalDateTime endTime = null;
+            int epicId = 0;
+            IntIndexedSet subtaskIds = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "type" -> type = parseEnum(TypeTask.class, in.nextString());
+                    case "id" -> id = in.nextInt();
+                    case "name" -> name = in.nextString();
+                    case "description" -> description = in.nextString();
+                    case "status" -> status = parseEnum(TaskStatus.class, in.nextString());
+                    case "duration" -> duration = Duration.ofSeconds(in.nextLong());
+                    case "startTime" -> startTime = LocalDateTimeAdapter.parse(in.nextString());
+                    case "endTime" -> endTime = LocalDateTimeAdapter.parse(in.nextString());
+                    case "epicId" -> epicId = in.nextInt();
+                    case "subtaskIds" -> {
+                        subtaskIds = new IntIndexedSet();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            subtaskIds.add(in.nextInt());
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (type == null) {
+                type = requested == Subtask.class ? TypeTask.SUBTASK
+                        : requested == Epic.class ? TypeTask.EPIC : TypeTask.TASK;
+            }
+            Task task = switch (type) {
+                case SUBTASK -> new Subtask(id, name, description, status, epicId);
+                case EPIC -> {
+                    Epic epic = new Epic(id, name, description, status);
+                    epic.setEndTime(endTime);
+                    if (subtaskIds != null) {
+                        for (int i = 0; i < subtaskIds.size(); i++) {
+                            epic.addSubtask(subtaskIds.get(i));
+                        }
+                    }
+                    yield epic;
+                }
+                case TASK -> new Task(id, name, description, status);
+            };
+            if (!requested.isInstance(task)) {
+                throw new JsonParseException("Ожидался " + requested.getSimpleName() + ", получен " + type);
+            }
+            task.setDuration(duration);
+            task.setStartTime(startTime);
+            return task;
+        }
+
+        private static TypeTask typeOf(Task task) {
+            if (task instanceof Subtask) {
+                return TypeTask.SUBTASK;
+            }
+            return task instanceof Epic ? TypeTask.EPIC : TypeTask.TASK;
+        }
+
+        private static <E extends Enum<E>> E parseEnum(Class<E> enumClass, String value) {
+            try {
+                return Enum.valueOf(enumClass, value);
+            } catch (IllegalArgumentException e) {
+                throw new JsonParseException("Неизвестное значение " + enumClass.getSimpleName() + ": " + value);
+            }
+        }
+    }
+}
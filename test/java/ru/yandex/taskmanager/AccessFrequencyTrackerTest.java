@@ -0,0 +1,87 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.AccessFrequencyTracker;
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessFrequencyTrackerTest {
+
+    @Test
+    void findsHeavyHittersAmongNoise() {
+        AccessFrequencyTracker tracker = new AccessFrequencyTracker(1024, 8);
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            if (i % 10 == 0) {
+                tracker.record(1 + i / 10 % 3); // 1, 2, 3 - по 10% всех обращений на троих
+            } else {
+                tracker.record(100 + random.nextInt(1_000_000));
+            }
+        }
+
+        int[] top = tracker.top(3);
+        assertEquals(3, top.length);
+        assertEquals(List.of(1, 2, 3), Arrays.stream(top).sorted().boxed().toList());
+    }
+
+    @Test
+    void agingLetsNewHotTasksReplaceOldOnes() {
+        AccessFrequencyTracker tracker = new AccessFrequencyTracker(64, 1);
+        for (int i = 0; i < 5_000; i++) {
+            tracker.record(1);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            tracker.record(2);
+        }
+
+        assertEquals(2, tracker.top(1)[0]);
+        assertTrue(tracker.estimate(1) < tracker.estimate(2));
+    }
+
+    @Test
+    void removedTaskLeavesTop() {
+        AccessFrequencyTracker tracker = new AccessFrequencyTracker(64, 4);
+        for (int id = 1; id <= 4; id++) {
+            for (int i = 0; i < id; i++) {
+                tracker.record(id);
+            }
+        }
+        tracker.remove(4);
+        tracker.remove(1);
+
+        assertEquals(3, tracker.top(10)[0]);
+        assertEquals(2, tracker.top(10).length);
+    }
+
+    @Test
+    void managersReportHotTasks() throws Exception {
+        for (TaskManager manager : new TaskManager[]{
+                new InMemoryTaskManager(new InMemoryHistoryManager()),
+                new ConcurrentTaskManager(new InMemoryHistoryManager())}) {
+            for (int i = 0; i < 3; i++) {
+                manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+            }
+            for (int i = 0; i < 5; i++) {
+                manager.getTaskId(2);
+            }
+            manager.getTaskId(1);
+            manager.getTaskId(3);
+            manager.getTaskId(3);
+            manager.deleteTaskId(1);
+
+            List<Integer> hot = manager.getHotTasks(5).stream().map(Task::getId).toList();
+            assertEquals(List.of(2, 3), hot);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.BinarySnapshot;
+import ru.yandex.taskmanager.manager.FileBackedTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.SnapshotFiles;
+import ru.yandex.taskmanager.manager.SnapshotFormat;
+import ru.yandex.taskmanager.manager.TaskCsvFormat;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySnapshotTest {
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("binary-snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : files.toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static List<Task> sample(int count) {
+        List<Task> tasks = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(1969, 12, 31, 23, 0);
+        for (int id = 1; id <= count; id++) {
+            switch (id % 3) {
+                case 0 -> tasks.add(new Epic(id, "Эпик " + id, null, TaskStatus.IN_PROGRESS,
+                        Duration.ofMinutes(id), base, base.plusDays(id)));
+                case 1 -> tasks.add(new Subtask(id, "Подзадача, " + id, "Описание\n" + id, TaskStatus.DONE,
+                        id + 2, Duration.ofSeconds(90), base.plusMinutes(id).plusNanos(123_456_789)));
+                default -> tasks.add(new Task(id, "Задача " + id, "", TaskStatus.NEW, null, null));
+            }
+        }
+        return tasks;
+    }
+
+    private static List<String> lines(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(TaskCsvFormat.format(task) + "|" + task.getDuration() + "|" + task.getStartTime()
+                    + "|" + task.getDescription());
+        }
+        return lines;
+    }
+
+    @Test
+    void roundTripKeepsAllFields() throws IOException {
+        List<Task> tasks = sample(5_000);
+        for (boolean compress : new boolean[]{false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinarySnapshot.write(out, tasks, compress);
+
+            List<Task> loaded = new ArrayList<>();
+            BinarySnapshot.read(new ByteArrayInputStream(out.toByteArray()), loaded::add);
+
+            assertEquals(lines(tasks), lines(loaded));
+        }
+    }
+
+    @Test
+    void corruptedBlockIsSkipped() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySnapshot.write(out, sample(20_000), false);
+        byte[] bytes = out.toByteArray();
+        bytes[bytes.length / 2] ^= 0x55;
+
+        List<Task> loaded = new ArrayList<>();
+        BinarySnapshot.read(new ByteArrayInputStream(bytes), loaded::add);
+
+        assertFalse(loaded.isEmpty(), "Целые блоки должны читаться");
+        assertTrue(loaded.size() < 20_000, "Повреждённый блок должен быть пропущен");
+    }
+
+    @Test
+    void corruptedBlockHeaderStopsReading() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySnapshot.write(out, sample(100), false);
+        byte[] bytes = out.toByteArray();
+        // после "TMSB", версии и флагов идёт заголовок первого блока: число записей и длины
+        for (int i = 7; i < 12; i++) {
+            bytes[i] = (byte) 0xFF;
+        }
+
+        List<Task> loaded = new ArrayList<>();
+        BinarySnapshot.read(new ByteArrayInputStream(bytes), loaded::add);
+
+        assertTrue(loaded.isEmpty(), "Блок с повреждённым заголовком не должен читаться");
+    }
+
+    @Test
+    void taskWithoutStatusIsSkippedLikeCsv() throws IOException {
+        List<Task> tasks = sample(3);
+        tasks.get(1).setStatus(null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySnapshot.write(out, tasks, true);
+
+        List<Task> loaded = new ArrayList<>();
+        BinarySnapshot.read(new ByteArrayInputStream(out.toByteArray()), loaded::add);
+
+        assertEquals(2, loaded.size());
+        assertEquals(tasks.get(2).getId(), loaded.get(1).getId());
+    }
+
+    @Test
+    void converterRoundTripAndSize() throws IOException {
+        Path csv = dir.resolve("tasks.csv");
+        Path binary = dir.resolve("tasks.bin");
+        Path back = dir.resolve("back.csv");
+        SnapshotFiles.writeAtomically(csv, sample(3_000), SnapshotFormat.CSV);
+
+        SnapshotFiles.convert(csv, binary, SnapshotFormat.BINARY_DEFLATE);
+        SnapshotFiles.convert(binary, back, SnapshotFormat.CSV);
+
+        assertTrue(BinarySnapshot.isBinary(binary));
+        assertFalse(BinarySnapshot.isBinary(back));
+        assertTrue(Files.size(binary) * 3 < Files.size(csv), "Двоичный снимок должен быть заметно меньше");
+        assertEquals(Files.readAllLines(csv), Files.readAllLines(back));
+    }
+
+    @Test
+    void managerSavesAndLoadsBinarySnapshot() {
+        Path file = dir.resolve("tasks.bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file,
+                SnapshotFormat.BINARY);
+        Epic epic = new Epic(0, "Эпик", "Описание", TaskStatus.NEW);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(0, "Подзадача", "Описание", TaskStatus.DONE, epic.getId(),
+                Duration.ofMinutes(15), LocalDateTime.of(2024, 2, 3, 4, 5));
+        manager.createSubtask(subtask);
+
+        FileBackedTaskManager loaded = new FileBackedTaskManager(new InMemoryHistoryManager(), file);
+        loaded.loadFromFile();
+
+        assertEquals(subtask.getId(), loaded.getAllSubTasks().get(0).getId());
+        assertEquals(TaskStatus.DONE, loaded.getAllEpics().get(0).getStatus());
+        assertEquals(subtask.getStartTime(), loaded.getAllEpics().get(0).getStartTime());
+        assertFalse(Files.exists(dir.resolve("tasks.bin.tmp")), "Временный файл должен быть переименован");
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.BoundedHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BoundedHistoryManagerTest {
+    private BoundedHistoryManager history;
+    private TaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        history = new BoundedHistoryManager(3);
+        manager = new InMemoryTaskManager(history);
+        for (int i = 0; i < 5; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+    }
+
+    private List<Integer> ids() {
+        return manager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void evictsLeastRecentlyViewed() throws Exception {
+        for (int id = 1; id <= 5; id++) {
+            manager.getTaskId(id);
+        }
+        assertEquals(List.of(3, 4, 5), ids());
+
+        manager.getTaskId(3);
+        manager.getTaskId(1);
+        assertEquals(List.of(5, 3, 1), ids());
+        assertEquals(3, history.size());
+    }
+
+    @Test
+    void resolvesTasksLazily() throws Exception {
+        manager.getTaskId(2);
+        Task updated = new Task(2, "Updated", "Desc", TaskStatus.DONE);
+        manager.updateTask(updated);
+        history.add(new Task(99, "Unknown", "Desc", TaskStatus.NEW));
+
+        List<Task> result = manager.getHistory();
+        assertEquals(1, result.size(), "Задача, которой нет в менеджере, не должна попадать в историю");
+        assertSame(updated, result.get(0), "История должна отдавать текущую версию задачи");
+    }
+
+    @Test
+    void removeFreesSlot() throws Exception {
+        Epic epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(0, "Sub", "Desc", TaskStatus.NEW, epic.getId());
+        manager.createSubtask(subtask);
+
+        manager.getTaskId(1);
+        manager.getEpicId(epic.getId());
+        manager.getSubTaskId(subtask.getId());
+        manager.deleteEpicId(epic.getId());
+        manager.getTaskId(2);
+
+        assertEquals(List.of(1, 2), ids());
+        assertEquals(2, history.size(), "Подзадачи удалённого эпика должны уйти из истории");
+
+        manager.deleteAllTasks();
+        assertEquals(0, history.size());
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.BufferedHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferedHistoryManagerTest {
+
+    private static Task task(int id) {
+        return new Task(id, "Task " + id, "Desc", TaskStatus.NEW);
+    }
+
+    private static List<Integer> ids(List<Task> history) {
+        return history.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void singleThreadKeepsOrderAndRemovals() {
+        BufferedHistoryManager history = new BufferedHistoryManager(new InMemoryHistoryManager());
+        for (int i = 1; i <= 500; i++) {
+            history.add(task(i % 50));
+        }
+        history.add(task(7));
+        history.remove(8);
+
+        List<Integer> ids = ids(history.getHistory());
+        assertEquals(49, ids.size());
+        assertEquals(7, ids.get(ids.size() - 1).intValue(), "Последний просмотр должен быть в конце");
+        assertFalse(ids.contains(8), "Удалённый id не должен вернуться из буфера");
+    }
+
+    @Test
+    void concurrentViewsKeepPerThreadOrder() throws InterruptedException {
+        int threads = 8;
+        int perThread = 2_000;
+        BufferedHistoryManager history = new BufferedHistoryManager(new InMemoryHistoryManager(),
+                Duration.ofMillis(1));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    history.add(task(base + i));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Integer> ids = ids(history.getHistory());
+        history.close();
+        assertEquals(threads * perThread, ids.size(), "Ни один просмотр не должен потеряться");
+        Map<Integer, Integer> lastSeen = new HashMap<>();
+        for (int id : ids) {
+            int thread = id / perThread;
+            Integer previous = lastSeen.put(thread, id);
+            assertTrue(previous == null || previous < id, "Порядок просмотров одного потока нарушен");
+        }
+    }
+
+    // Сливы идут непрерывно, поэтому просмотры разносятся по разным пачкам.
+    // Если просмотр a закончился до начала просмотра b, a обязан стоять в истории раньше b
+    @Test
+    void viewsKeepRealTimeOrderAcrossBatches() throws InterruptedException {
+        int threads = 4;
+        int perThread = 3_000;
+        int views = threads * perThread;
+        BufferedHistoryManager history = new BufferedHistoryManager(new InMemoryHistoryManager());
+        AtomicInteger finished = new AtomicInteger();
+        int[] finishedBefore = new int[views];
+        int[] finishTicket = new int[views];
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                history.drain();
+            }
+        });
+        reader.start();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    int id = base + i;
+                    finishedBefore[id] = finished.get();
+                    history.add(task(id));
+                    finishTicket[id] = finished.incrementAndGet();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        running.set(false);
+        reader.join();
+
+        List<Integer> ids = ids(history.getHistory());
+        history.close();
+        assertEquals(views, ids.size(), "Ни один просмотр не должен потеряться");
+        int[] position = new int[views];
+        for (int i = 0; i < ids.size(); i++) {
+            position[ids.get(i)] = i;
+        }
+        // latest[k] - наибольшая позиция среди просмотров, закончившихся k-ми или раньше
+        int[] latest = new int[views + 1];
+        Arrays.fill(latest, -1);
+        for (int id = 0; id < views; id++) {
+            latest[finishTicket[id]] = position[id];
+        }
+        for (int k = 1; k <= views; k++) {
+            latest[k] = Math.max(latest[k], latest[k - 1]);
+        }
+        for (int id = 0; id < views; id++) {
+            assertTrue(latest[finishedBefore[id]] < position[id],
+                    "Просмотр " + id + " обогнал закончившийся раньше него");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.BoundedHistoryManager;
+import ru.yandex.taskmanager.manager.ClientHistories;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+import ru.yandex.taskmanager.util.Managers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientHistoriesTest {
+    private TaskManager manager;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        manager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        for (int i = 0; i < 5; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+    }
+
+    private ClientHistories histories(int capacity, long budget) {
+        return new ClientHistories(manager::findById, capacity, budget, Duration.ofMinutes(30), () -> now);
+    }
+
+    private static List<Integer> ids(List<Task> history) {
+        return history.stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void clientsHaveSeparateBoundedHistories() {
+        ClientHistories histories = histories(2, ClientHistories.DEFAULT_MEMORY_BUDGET);
+        for (int id = 1; id <= 3; id++) {
+            histories.record("alice", manager.findById(id));
+        }
+        histories.record("bob", manager.findById(5));
+
+        assertEquals(List.of(2, 3), ids(histories.getHistory("alice")));
+        assertEquals(List.of(5), ids(histories.getHistory("bob")));
+        assertTrue(histories.getHistory("carol").isEmpty());
+        assertTrue(manager.getHistory().isEmpty(), "Общая история не должна меняться");
+    }
+
+    @Test
+    void deletedTasksAreSkipped() {
+        ClientHistories histories = histories(5, ClientHistories.DEFAULT_MEMORY_BUDGET);
+        histories.record("alice", manager.findById(1));
+        histories.record("alice", manager.findById(2));
+        manager.deleteTaskId(1);
+
+        assertEquals(List.of(2), ids(histories.getHistory("alice")));
+    }
+
+    @Test
+    void idleClientsAreEvicted() {
+        ClientHistories histories = histories(5, ClientHistories.DEFAULT_MEMORY_BUDGET);
+        histories.record("alice", manager.findById(1));
+        now += Duration.ofMinutes(20).toNanos();
+        histories.record("bob", manager.findById(2));
+        now += Duration.ofMinutes(20).toNanos();
+
+        histories.evictIdle();
+
+        assertEquals(1, histories.size());
+        assertTrue(histories.getHistory("alice").isEmpty());
+        assertEquals(List.of(2), ids(histories.getHistory("bob")));
+    }
+
+    @Test
+    void clientCountIsLimitedByMemoryBudget() {
+        long budget = 100_000L * (BoundedHistoryManager.estimateBytes(20) + 128);
+        ClientHistories histories = histories(20, budget);
+        assertTrue(histories.maxClients() <= 100_000);
+        assertTrue(histories.maxClients() > 99_900);
+
+        ClientHistories small = histories(20, 0);
+        for (int i = 0; i < 1_000; i++) {
+            small.record("client-" + i, manager.findById(1));
+        }
+        assertEquals(small.maxClients(), small.size());
+        assertEquals(List.of(1), ids(small.getHistory("client-999")));
+    }
+}
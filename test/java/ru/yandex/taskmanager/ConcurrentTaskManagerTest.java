@@ -0,0 +1,191 @@
+package ru.yandex.taskmanager;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
+import ru.yandex.taskmanager.manager.HttpTaskServer;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500;
+
+    @Test
+    void testParallelSubtaskCreation() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        Epic epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0)
+                            .plusMinutes((long) (thread * PER_THREAD + i) * 10);
+                    manager.createSubtask(new Subtask(0, "Subtask", "Desc", TaskStatus.DONE,
+                            epic.getId(), Duration.ofMinutes(5), start));
+                    manager.getEpicId(epic.getId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int expected = THREADS * PER_THREAD;
+        assertEquals(expected, manager.getAllSubTasks().size(), "Потеряны подзадачи");
+        assertEquals(expected, manager.getSubtasksEpic(epic.getId()).size(), "Потеряны ссылки эпика");
+        assertEquals(expected, manager.getPrioritizedTasks().size(), "Потеряны задачи расписания");
+        assertEquals(expected, epic.getSubtaskIds().stream().distinct().count(), "Выданы повторяющиеся id");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Неверный статус эпика");
+    }
+
+    @Test
+    void testParallelOverlappingSavesKeepOnlyOne() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        Epic epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS * 8; t++) {
+            boolean subtask = t % 2 == 0;
+            // все задачи пересекаются с 10:30
+            LocalDateTime begin = start.plusMinutes(t % 4 * 10);
+            futures.add(executor.submit(() -> subtask
+                    ? manager.saveSubtaskIfNoOverlap(new Subtask(0, "Sub", "Desc", TaskStatus.NEW,
+                    epic.getId(), Duration.ofMinutes(45), begin))
+                    : manager.saveTaskIfNoOverlap(new Task(0, "Task", "Desc", TaskStatus.NEW,
+                    Duration.ofMinutes(45), begin))));
+        }
+        int saved = 0;
+        for (Future<Boolean> future : futures) {
+            saved += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, saved, "Сохранена больше чем одна пересекающаяся задача");
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testEpicSerializesWhileSubtasksChange() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        Epic epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+        Gson gson = HttpTaskServer.getGson();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean writer = t % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    if (writer) {
+                        Subtask subtask = new Subtask(0, "Subtask", "Desc", TaskStatus.NEW, epic.getId());
+                        manager.createSubtask(subtask);
+                        manager.deleteSubtaskId(subtask.getId());
+                    } else {
+                        // удаление посреди обхода subtaskIds не должно ронять сериализацию
+                        gson.toJson(manager.getEpicId(epic.getId()));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(0, epic.getSubtaskIds().size(), "Удалённые подзадачи остались в эпике");
+    }
+
+    @Test
+    void testParallelCreateAndDeleteKeepScheduleConsistent() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        Epic epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+        int ids = 16;
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        // явные id занимаются заранее, чтобы сгенерированный id подзадачи не совпал с ними
+        for (int id = 1000; id < 1000 + ids; id++) {
+            manager.createTask(new Task(id, "Task", "Desc", TaskStatus.NEW,
+                    Duration.ofMinutes(5), start.plusMinutes(id * 10L)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean creator = t % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    // явные id 1000.. создаются и удаляются вперемешку на одних и тех же id
+                    int id = 1000 + i % ids;
+                    if (creator) {
+                        manager.createTask(new Task(id, "Task", "Desc", TaskStatus.NEW,
+                                Duration.ofMinutes(5), start.plusMinutes(id * 10L)));
+                        manager.createSubtask(new Subtask(0, "Subtask", "Desc", TaskStatus.NEW, epic.getId(),
+                                Duration.ofMinutes(5), start.plusDays(1).plusMinutes(i * 10L)));
+                    } else {
+                        manager.deleteTaskId(id);
+                        manager.getSubtasksEpic(epic.getId()).forEach(subtask ->
+                                manager.deleteSubtaskId(subtask.getId()));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> stored = new ArrayList<>(manager.getAllTasks());
+        stored.addAll(manager.getAllSubTasks());
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(stored.size(), prioritized.size(), "В расписании остались удалённые задачи");
+        for (Task task : prioritized) {
+            assertTrue(manager.findById(task.getId()) == task, "Расписание расходится с картами: " + task.getId());
+        }
+        assertEquals(manager.getAllSubTasks().size(), manager.getSubtasksEpic(epic.getId()).size(),
+                "Эпик расходится с картой подзадач");
+    }
+
+    @Test
+    void testParallelTaskIdsAreUnique() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    manager.createTask(new Task("Task", "Desc"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * PER_THREAD, manager.getAllTasks().size(), "Задачи перезаписали друг друга");
+    }
+}
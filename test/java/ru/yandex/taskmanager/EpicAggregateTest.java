@@ -0,0 +1,79 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EpicAggregateTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 9, 0);
+    private TaskManager manager;
+    private Epic epic;
+
+    @BeforeEach
+    void setUp() {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+    }
+
+    private Subtask subtask(TaskStatus status, int startHours, int durationHours) {
+        Subtask subtask = new Subtask(0, "Subtask", "Desc", status, epic.getId(),
+                Duration.ofHours(durationHours), BASE.plusHours(startHours));
+        manager.createSubtask(subtask);
+        return subtask;
+    }
+
+    @Test
+    void testStatusFollowsSubtasks() {
+        Subtask first = subtask(TaskStatus.NEW, 0, 1);
+        Subtask second = subtask(TaskStatus.DONE, 2, 1);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Смешанные статусы дают IN_PROGRESS");
+
+        manager.updateSubtask(new Subtask(first.getId(), "Subtask", "Desc", TaskStatus.DONE,
+                epic.getId(), Duration.ofHours(1), BASE));
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Все подзадачи выполнены");
+
+        manager.deleteSubtaskId(first.getId());
+        manager.deleteSubtaskId(second.getId());
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Эпик без подзадач должен быть NEW");
+    }
+
+    @Test
+    void testTimeBoundsAfterRemoval() {
+        Subtask earliest = subtask(TaskStatus.NEW, 0, 1);
+        subtask(TaskStatus.NEW, 3, 2);
+        Subtask latest = subtask(TaskStatus.NEW, 10, 4);
+
+        assertEquals(BASE, epic.getStartTime(), "Неверное начало эпика");
+        assertEquals(BASE.plusHours(14), epic.getEndTime(), "Неверное окончание эпика");
+        assertEquals(Duration.ofHours(7), epic.getDuration(), "Неверная длительность эпика");
+
+        manager.deleteSubtaskId(earliest.getId());
+        manager.deleteSubtaskId(latest.getId());
+        assertEquals(BASE.plusHours(3), epic.getStartTime(), "Начало не пересчитано после удаления");
+        assertEquals(BASE.plusHours(5), epic.getEndTime(), "Окончание не пересчитано после удаления");
+        assertEquals(Duration.ofHours(2), epic.getDuration(), "Длительность не пересчитана после удаления");
+    }
+
+    @Test
+    void testDeleteAllSubtasksResetsEpic() {
+        subtask(TaskStatus.IN_PROGRESS, 0, 1);
+        manager.deleteAllSubTask();
+
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertNull(epic.getStartTime(), "Начало эпика должно быть сброшено");
+        assertTrue(manager.getSubtasksEpic(epic.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.BoundedHistoryManager;
+import ru.yandex.taskmanager.manager.FileBackedTaskManager;
+import ru.yandex.taskmanager.manager.HistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileBackedHistoryTest {
+    private Path dir;
+    private Path file;
+    private Path historyFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("history");
+        file = dir.resolve("tasks.csv");
+        historyFile = dir.resolve("tasks.csv.history");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private FileBackedTaskManager open(HistoryManager history) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(history, file);
+        manager.persistHistory(null);
+        manager.loadFromFile();
+        return manager;
+    }
+
+    private static List<Integer> ids(FileBackedTaskManager manager) {
+        return manager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void historySurvivesRestart() {
+        FileBackedTaskManager manager = open(new InMemoryHistoryManager());
+        for (int i = 0; i < 4; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+        for (int id : new int[]{1, 2, 3, 1, 4, 2}) {
+            manager.getTaskId(id);
+        }
+        manager.deleteTaskId(4);
+        manager.close();
+
+        FileBackedTaskManager loaded = open(new InMemoryHistoryManager());
+
+        assertEquals(List.of(3, 1, 2), ids(loaded));
+        loaded.close();
+    }
+
+    @Test
+    void boundedHistoryReadsOnlyTail() throws IOException {
+        FileBackedTaskManager manager = open(new InMemoryHistoryManager());
+        for (int i = 0; i < 10; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+        for (int id = 1; id <= 10; id++) {
+            manager.getTaskId(id);
+        }
+        manager.close();
+        // недописанная строка после сбоя
+        Files.writeString(historyFile, "7", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = open(new BoundedHistoryManager(3));
+
+        assertEquals(List.of(8, 9, 10), ids(loaded));
+        loaded.close();
+    }
+
+    @Test
+    void logIsCompactedToCurrentHistory() throws IOException {
+        FileBackedTaskManager manager = open(new InMemoryHistoryManager());
+        for (int i = 0; i < 3; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            manager.getTaskId(i % 3 + 1);
+        }
+        manager.getTaskId(1);
+        manager.close();
+
+        assertTrue(Files.readAllLines(historyFile).size() < 2_000, "Журнал должен сжиматься");
+
+        FileBackedTaskManager loaded = open(new InMemoryHistoryManager());
+        assertEquals(List.of(3, 2, 1), ids(loaded));
+        loaded.close();
+    }
+}
@@ -0,0 +1,146 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.DurabilityPolicy;
+import ru.yandex.taskmanager.manager.FileBackedTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.PersistenceMode;
+import ru.yandex.taskmanager.manager.TaskJournal;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileBackedJournalTest {
+    private Path dir;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal");
+        file = dir.resolve("tasks.csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private FileBackedTaskManager open(long threshold) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file,
+                PersistenceMode.JOURNAL, threshold);
+        manager.loadFromFile();
+        return manager;
+    }
+
+    @Test
+    void testReplayRestoresState() {
+        FileBackedTaskManager manager = open(Long.MAX_VALUE);
+        Epic epic = new Epic(0, "Epic", "Desc", TaskStatus.NEW);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask(0, "Subtask", "Desc", TaskStatus.DONE, epic.getId(),
+                Duration.ofMinutes(45), LocalDateTime.of(2024, 5, 1, 10, 0));
+        manager.createSubtask(subtask);
+        Task task = new Task(0, "Task", "Desc", TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 5, 2, 10, 0));
+        manager.createTask(task);
+        Task removed = new Task(0, "Removed", "Desc", TaskStatus.NEW);
+        manager.createTask(removed);
+        manager.deleteTaskId(removed.getId());
+        manager.close();
+
+        assertFalse(Files.exists(file), "В режиме журнала снимок не должен перезаписываться");
+
+        FileBackedTaskManager loaded = open(Long.MAX_VALUE);
+        Epic loadedEpic = loaded.getAllEpics().get(0);
+        assertEquals(epic.getId(), loadedEpic.getId(), "id эпика должен сохраниться");
+        assertEquals(TaskStatus.DONE, loadedEpic.getStatus(), "Статус эпика не восстановлен");
+        assertEquals(subtask.getStartTime(), loadedEpic.getStartTime(), "Время эпика не восстановлено");
+        assertEquals(1, loaded.getSubtasksEpic(epic.getId()).size(), "Связь эпика с подзадачей потеряна");
+        assertEquals(1, loaded.getAllTasks().size(), "Удаление задачи не восстановлено");
+        assertEquals(task.getStartTime(), loaded.getAllTasks().get(0).getStartTime());
+        assertTrue(loaded.getHistory().isEmpty(), "Загрузка не должна попадать в историю");
+        loaded.close();
+    }
+
+    @Test
+    void testCompactionWritesSnapshot() throws IOException {
+        FileBackedTaskManager manager = open(512);
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+            manager.awaitCompaction();
+        }
+        manager.deleteTaskId(1);
+        manager.close();
+
+        assertTrue(Files.exists(file), "После сжатия должен появиться снимок");
+        assertTrue(Files.size(dir.resolve("tasks.csv.journal")) < 1024, "Журнал не сжат");
+
+        FileBackedTaskManager loaded = open(512);
+        assertEquals(99, loaded.getAllTasks().size(), "Состояние после сжатия не совпадает");
+        assertNull(loaded.getTaskId(1));
+        loaded.close();
+    }
+
+    @Test
+    void testRotationKeepsRecordsMissingFromSnapshot() throws IOException {
+        TaskJournal journal = new TaskJournal(dir.resolve("rotate.journal"));
+        journal.append("PUT,1");
+        journal.rotate(); // снимок так и не записан: сбой до deleteRotated
+        journal.append("PUT,2");
+        journal.rotate();
+        journal.append("PUT,3");
+
+        List<String> records = new ArrayList<>();
+        journal.replay(records::add);
+        assertEquals(List.of("PUT,1", "PUT,2", "PUT,3"), records, "Записи прошлого *.old потеряны");
+        journal.deleteRotated();
+        journal.close();
+    }
+
+    @Test
+    void testWriteBehindPolicies() {
+        DurabilityPolicy[] policies = {
+                DurabilityPolicy.sync(),
+                DurabilityPolicy.periodic(Duration.ofMillis(20)),
+                DurabilityPolicy.osBuffered()
+        };
+        for (DurabilityPolicy policy : policies) {
+            Path policyFile = dir.resolve(policy.type() + ".csv");
+            FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), policyFile,
+                    PersistenceMode.WRITE_BEHIND, Long.MAX_VALUE, policy);
+            for (int i = 0; i < 200; i++) {
+                manager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+            }
+            manager.awaitDurable();
+
+            FileBackedTaskManager loaded = new FileBackedTaskManager(new InMemoryHistoryManager(), policyFile,
+                    PersistenceMode.WRITE_BEHIND, Long.MAX_VALUE, policy);
+            loaded.loadFromFile();
+            assertEquals(200, loaded.getAllTasks().size(), "Потеряны записи при политике " + policy.type());
+            manager.close();
+            loaded.close();
+        }
+    }
+}
@@ -127,4 +127,30 @@ public class FileBackedTaskManagerTest {
         assertEquals(1, loadedManager.getHistory().size());
         assertEquals(task.getId(), loadedManager.getHistory().get(0).getId());
     }
+
+    @Test
+    void testLoadKeepsIdsAndLinksWithoutRewritingFile() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Files.writeString(tempFile, "id,type,name,status,description,epic,duration,startTime,endTime\n"
+                + "7,SUBTASK,Подзадача,DONE,Описание,5,30," + start + "\n"
+                + "5,EPIC,Эпик,NEW,Описание,,0,,\n"
+                + "12,TASK,Задача,NEW,Описание,,15," + start.plusHours(1) + "\n");
+        String before = Files.readString(tempFile);
+
+        manager.loadFromFile();
+
+        assertEquals(before, Files.readString(tempFile), "Загрузка не должна перезаписывать файл");
+        assertTrue(manager.getHistory().isEmpty(), "Загрузка не должна попадать в историю");
+        assertEquals(12, manager.getAllTasks().get(0).getId());
+        Epic epic = manager.getAllEpics().get(0);
+        assertEquals(5, epic.getId());
+        assertTrue(epic.getSubtaskIds().contains(7), "Подзадача должна быть привязана к эпику");
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(start, epic.getStartTime());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+
+        Task created = new Task(0, "Новая", "Описание", TaskStatus.NEW, null, null);
+        manager.createTask(created);
+        assertEquals(13, created.getId(), "Новые id должны идти после загруженных");
+    }
 }
@@ -2,11 +2,17 @@ package ru.yandex.taskmanager;
 
 
 import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.BufferedHistoryManager;
 import ru.yandex.taskmanager.manager.HistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
 import ru.yandex.taskmanager.model.Task;
 import ru.yandex.taskmanager.model.TaskStatus;
 import ru.yandex.taskmanager.util.Managers;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 
@@ -21,4 +27,39 @@ class HistoryManagerTest {
 
         assertEquals(15, historyManager.getHistory().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHistoryPagesFromMostRecent() {
+        Task[] tasks = new Task[600];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(i + 1, "Task " + (i + 1), "Description", TaskStatus.NEW);
+        }
+        for (HistoryManager historyManager : new HistoryManager[]{
+                new InMemoryHistoryManager(),
+                Managers.getBoundedHistory(1_000),
+                new BufferedHistoryManager(new InMemoryHistoryManager())}) {
+            historyManager.setTaskResolver(id -> tasks[id - 1]);
+            for (Task task : tasks) {
+                historyManager.add(task);
+            }
+            historyManager.add(tasks[0]);
+            historyManager.remove(600);
+
+            assertEquals(List.of(1, 599, 598), ids(historyManager.getHistory(0, 3)));
+            assertEquals(List.of(597, 596), ids(historyManager.getHistory(3, 2)));
+            assertEquals(List.of(3, 2), ids(historyManager.getHistory(597, 10)));
+            assertEquals(0, historyManager.getHistory(700, 10).size());
+
+            List<Task> all = new ArrayList<>();
+            Iterator<Task> iterator = historyManager.recentFirst();
+            iterator.forEachRemaining(all::add);
+            assertEquals(599, all.size());
+            assertEquals(1, all.get(0).getId());
+            assertEquals(2, all.get(598).getId());
+        }
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
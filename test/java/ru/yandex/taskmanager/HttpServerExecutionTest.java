@@ -0,0 +1,93 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.ClientHistories;
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
+import ru.yandex.taskmanager.manager.HttpTaskServer;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.ServerExecution;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HttpServerExecutionTest {
+
+    // Менеджер, у которого чтение задачи 1 висит до release
+    private static class SlowManager extends ConcurrentTaskManager {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        SlowManager() {
+            super(new InMemoryHistoryManager());
+        }
+
+        @Override
+        public Task getTaskId(int id) {
+            if (id == 1) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getTaskId(id);
+        }
+    }
+
+    @Test
+    void slowRequestDoesNotBlockOthers() throws Exception {
+        for (ServerExecution execution : new ServerExecution[]{
+                ServerExecution.virtualThreads(),
+                ServerExecution.platformPool(4, 16, 64)}) {
+            SlowManager manager = new SlowManager();
+            manager.createTask(new Task(0, "Slow", "Desc", TaskStatus.NEW));
+            manager.createTask(new Task(0, "Fast", "Desc", TaskStatus.NEW));
+            HttpTaskServer server = new HttpTaskServer(manager, 0,
+                    new ClientHistories(manager::findById), execution);
+            server.start();
+            try {
+                HttpClient client = HttpClient.newHttpClient();
+                String base = "http://localhost:" + server.getPort() + "/tasks/";
+                CompletableFuture<HttpResponse<String>> slow = client.sendAsync(
+                        HttpRequest.newBuilder().uri(URI.create(base + 1)).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+
+                HttpResponse<String> fast = client.send(
+                        HttpRequest.newBuilder().uri(URI.create(base + 2)).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, fast.statusCode(), execution.toString());
+                assertFalse(slow.isDone(), execution.toString());
+
+                manager.release.countDown();
+                assertEquals(200, slow.get(10, TimeUnit.SECONDS).statusCode(), execution.toString());
+            } finally {
+                manager.release.countDown();
+                server.stop();
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidPool() {
+        assertThrows(IllegalArgumentException.class, () -> ServerExecution.platformPool(0, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> ServerExecution.virtualThreads(-1));
+    }
+
+    @Test
+    void rejectsParallelExecutionForUnsafeManager() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(manager, 0,
+                new ClientHistories(manager::findById), ServerExecution.virtualThreads()));
+    }
+}
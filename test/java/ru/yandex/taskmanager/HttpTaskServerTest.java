@@ -11,27 +11,32 @@ import ru.yandex.taskmanager.model.Task;
 import ru.yandex.taskmanager.model.TaskStatus;
 import ru.yandex.taskmanager.util.Managers;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class HttpTaskServerTest {
+    private TaskManager taskManager;
     private HttpTaskServer server;
     private HttpClient client;
     private final Gson gson = HttpTaskServer.getGson();
 
     @BeforeEach
     void setUp() throws IOException {
-        TaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
         server = new HttpTaskServer(taskManager, 8080);
         server.start();
         client = HttpClient.newHttpClient();
@@ -228,6 +233,207 @@ class HttpTaskServerTest {
         assertEquals("Test Task", history.get(0).getName());
     }
 
+    @Test
+    void testHistoryIsKeptPerClient() throws IOException, InterruptedException {
+        for (String name : new String[]{"Task 1", "Task 2"}) {
+            HttpRequest createRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(
+                            new Task(0, name, "Description", TaskStatus.NEW, null, null))))
+                    .build();
+            client.send(createRequest, HttpResponse.BodyHandlers.ofString());
+        }
+
+        client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/1"))
+                .header(HttpTaskServer.CLIENT_ID_HEADER, "alice")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/2"))
+                .header(HttpTaskServer.CLIENT_ID_HEADER, "bob")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> aliceHistory = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history"))
+                .header(HttpTaskServer.CLIENT_ID_HEADER, "alice")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<Task> history = gson.fromJson(aliceHistory.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(1, history.size());
+        assertEquals("Task 1", history.get(0).getName());
+
+        HttpResponse<String> sharedHistory = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<Task> shared = gson.fromJson(sharedHistory.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertTrue(shared.isEmpty(), "Просмотры клиентов не должны попадать в общую историю");
+
+        HttpResponse<String> wrongType = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics/1"))
+                .header(HttpTaskServer.CLIENT_ID_HEADER, "alice")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, wrongType.statusCode());
+    }
+
+    @Test
+    void testScheduleFindsSlotAndPlacesBatch() throws IOException, InterruptedException {
+        client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new Task(0, "Busy", "Description",
+                        TaskStatus.NEW, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> slot = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/schedule?from=2024-01-01T09:30&duration=3600"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, slot.statusCode());
+        assertTrue(slot.body().contains("\"startTime\":\"2024-01-01 11:00:00\""), slot.body());
+
+        HttpResponse<String> scheduled = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/schedule?from=2024-01-01T09:30"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(List.of(
+                        new Task(0, "Short", "Description", TaskStatus.NEW, Duration.ofMinutes(30), null)))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, scheduled.statusCode());
+        List<Task> placed = gson.fromJson(scheduled.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 30), placed.get(0).getStartTime());
+    }
+
+    @Test
+    void testLargeListIsStreamed() throws IOException, InterruptedException {
+        for (int i = 1; i <= 2_000; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW,
+                    Duration.ofMinutes(5), LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(10L * i)));
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(""));
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(2_000, tasks.size());
+        assertEquals("Task 2000", tasks.get(1_999).getName());
+    }
+
+    @Test
+    void testConditionalGetAnswersNotModified() throws IOException, InterruptedException {
+        taskManager.createTask(new Task(0, "Task", "Description", TaskStatus.NEW));
+        HttpRequest list = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+
+        HttpResponse<String> first = client.send(list, HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-None-Match", etag).GET().build();
+        HttpResponse<String> cached = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, cached.statusCode());
+        assertEquals("", cached.body());
+
+        HttpRequest entity = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/1")).GET().build();
+        String entityTag = client.send(entity, HttpResponse.BodyHandlers.ofString())
+                .headers().firstValue("ETag").orElseThrow();
+
+        taskManager.updateTask(new Task(1, "Task", "Changed", TaskStatus.DONE));
+        HttpResponse<String> changed = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, changed.statusCode());
+        assertTrue(changed.body().contains("Changed"));
+        assertFalse(etag.equals(changed.headers().firstValue("ETag").orElseThrow()));
+
+        HttpResponse<String> changedEntity = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/1"))
+                .header("If-None-Match", entityTag).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, changedEntity.statusCode());
+
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/99")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, missing.statusCode());
+        assertTrue(missing.headers().firstValue("ETag").isEmpty());
+    }
+
+    @Test
+    void testRepeatedListIsServedFromCache() throws IOException, InterruptedException {
+        for (int i = 1; i <= 50; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+        }
+        HttpRequest list = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+        HttpResponse<String> first = client.send(list, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(list, HttpResponse.BodyHandlers.ofString());
+        assertEquals(first.body(), second.body());
+        // из кэша тело уходит готовым массивом байт с известной длиной, а не потоком
+        assertEquals(String.valueOf(second.body().getBytes(StandardCharsets.UTF_8).length),
+                second.headers().firstValue("Content-Length").orElse(""));
+
+        HttpResponse<byte[]> gzipped = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks")).header("Accept-Encoding", "gzip").GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(""));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertEquals(first.body(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        HttpRequest page = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks?limit=10")).GET().build();
+        client.send(page, HttpResponse.BodyHandlers.ofString());
+        assertEquals("10", client.send(page, HttpResponse.BodyHandlers.ofString())
+                .headers().firstValue(HttpTaskServer.NEXT_CURSOR_HEADER).orElse(""));
+
+        // изменение мимо HTTP: запись устарела по версии
+        taskManager.updateTask(new Task(1, "Renamed", "Description", TaskStatus.DONE));
+        assertTrue(client.send(list, HttpResponse.BodyHandlers.ofString()).body().contains("Renamed"));
+
+        // изменение через HTTP: запись выброшена сразу
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/2")).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<Task> tasks = gson.fromJson(client.send(list, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeToken<List<Task>>() {
+                }.getType());
+        assertEquals(49, tasks.size());
+    }
+
+    @Test
+    void testHistoryPages() throws IOException, InterruptedException {
+        for (int i = 1; i <= 3; i++) {
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(
+                            new Task(0, "Task " + i, "Description", TaskStatus.NEW, null, null))))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks/" + i))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history?limit=2"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<Task> page = gson.fromJson(first.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(List.of("Task 3", "Task 2"), page.stream().map(Task::getName).toList());
+        String cursor = first.headers().firstValue(HttpTaskServer.NEXT_CURSOR_HEADER).orElseThrow();
+
+        HttpResponse<String> second = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history?limit=2&cursor=" + cursor))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        page = gson.fromJson(second.body(), new TypeToken<List<Task>>() {
+        }.getType());
+        assertEquals(List.of("Task 1"), page.stream().map(Task::getName).toList());
+        assertTrue(second.headers().firstValue(HttpTaskServer.NEXT_CURSOR_HEADER).isEmpty());
+    }
+
     @Test
     void testGetPrioritizedTasks() throws IOException, InterruptedException {
 
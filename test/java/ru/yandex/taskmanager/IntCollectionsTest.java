@@ -0,0 +1,147 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.util.IntIndexedSet;
+import ru.yandex.taskmanager.util.IntIntHashMap;
+import ru.yandex.taskmanager.util.IntObjectHashMap;
+import ru.yandex.taskmanager.util.IntObjectSortedMap;
+import ru.yandex.taskmanager.util.IntSortedSet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntCollectionsTest {
+
+    @Test
+    void testMapMatchesHashMap() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "remove(" + key + ")");
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value), "put(" + key + ")");
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+    }
+
+    @Test
+    void testMapClear() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        map.put(0, "zero");
+        map.put(Integer.MIN_VALUE, "min");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertFalse(map.containsKey(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void testSetMatchesHashSet() {
+        IntIndexedSet set = new IntIndexedSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value), "add(" + value + ")");
+            } else {
+                assertEquals(expected.remove(value), set.remove(value), "remove(" + value + ")");
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        Set<Integer> actual = new HashSet<>();
+        set.forEach(actual::add);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testIntIntMapMatchesHashMap() {
+        IntIntHashMap map = new IntIntHashMap(16);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? -1 : old, map.remove(key), "remove(" + key + ")");
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value.intValue(), map.get(key)));
+        assertEquals(-1, map.get(5_000));
+    }
+
+    @Test
+    void testSortedSetMatchesTreeSet() {
+        IntSortedSet set = new IntSortedSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(5);
+
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(20_000) - 10_000;
+            if (random.nextInt(2) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        int[] all = new int[set.size()];
+        assertEquals(expected.size(), set.higher(Integer.MIN_VALUE, all, all.length));
+        assertEquals(expected.stream().toList(), Arrays.stream(all).boxed().toList());
+        assertTrue(set.contains(expected.first()));
+        assertFalse(set.contains(expected.first() - 1));
+    }
+
+    @Test
+    void testSortedMapPagesMatchTreeMap() {
+        IntObjectSortedMap<Integer> map = new IntObjectSortedMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            if (i % 1_000 == 0) {
+                int after = random.nextInt(5_000) - 1;
+                List<Integer> page = expected.tailMap(after, false).values().stream().limit(50).toList();
+                assertEquals(page, map.valuesAfter(after, 50));
+            }
+        }
+        map.clear();
+        assertTrue(map.valuesAfter(-1, 10).isEmpty());
+    }
+}
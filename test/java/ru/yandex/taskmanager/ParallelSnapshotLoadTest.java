@@ -0,0 +1,107 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.FileBackedTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.ParallelSnapshotReader;
+import ru.yandex.taskmanager.manager.TaskCsvFormat;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelSnapshotLoadTest {
+    private static final int ROWS = 6_000;
+    private Path file;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("parallel", ".csv");
+        pool = new ForkJoinPool(4);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(TaskCsvFormat.HEADER);
+            writer.newLine();
+            for (int id = 1; id <= ROWS; id++) {
+                Task task;
+                if (id % 5 == 0) {
+                    task = new Epic(id, "Эпик " + id, "Описание", TaskStatus.NEW, Duration.ZERO, null, null);
+                } else if (id % 2 == 0) {
+                    // подзадача ссылается на эпик, который ещё не встретился в файле
+                    task = new Subtask(id, "Подзадача, \"" + id + "\"", "Строка\nвторая", TaskStatus.DONE,
+                            (id / 5 + 1) * 5, Duration.ofMinutes(3), base.plusMinutes(id * 5L));
+                } else {
+                    task = new Task(id, "Задача " + id, "Описание", TaskStatus.NEW,
+                            Duration.ofMinutes(3), base.plusMinutes(id * 5L));
+                }
+                writer.write(TaskCsvFormat.format(task));
+                writer.newLine();
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void smallChunksGiveRecordsInFileOrder() throws IOException {
+        List<Task> parallel = new ArrayList<>();
+        new ParallelSnapshotReader(file, pool, 4 * 1024).read(parallel::add);
+
+        assertEquals(ROWS, parallel.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i + 1, parallel.get(i).getId());
+        }
+        assertEquals("Подзадача, \"2\"", parallel.get(1).getName());
+        assertEquals("Строка\nвторая", parallel.get(1).getDescription());
+    }
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() {
+        FileBackedTaskManager sequential = new FileBackedTaskManager(new InMemoryHistoryManager(), file);
+        sequential.loadFromFile();
+        FileBackedTaskManager parallel = new FileBackedTaskManager(new InMemoryHistoryManager(), file);
+        parallel.loadFromFileParallel(pool);
+
+        assertEquals(describe(sequential.getAllTasks()), describe(parallel.getAllTasks()));
+        assertEquals(describe(sequential.getAllSubTasks()), describe(parallel.getAllSubTasks()));
+        assertEquals(describe(sequential.getAllEpics()), describe(parallel.getAllEpics()));
+        assertEquals(sequential.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                parallel.getPrioritizedTasks().stream().map(Task::getId).toList());
+        for (Epic epic : sequential.getAllEpics()) {
+            Epic loaded = parallel.getAllEpics().stream()
+                    .filter(e -> e.getId() == epic.getId()).findFirst().orElseThrow();
+            assertEquals(epic.getSubtaskIds().toString(), loaded.getSubtaskIds().toString());
+            assertEquals(epic.getStatus(), loaded.getStatus());
+            assertEquals(epic.getStartTime(), loaded.getStartTime());
+        }
+    }
+
+    private static List<String> describe(List<? extends Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        tasks.stream()
+                .sorted(Comparator.comparingInt(Task::getId))
+                .forEach(task -> lines.add(TaskCsvFormat.format(task)));
+        return lines;
+    }
+}
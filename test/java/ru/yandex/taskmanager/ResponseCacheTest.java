@@ -0,0 +1,95 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.ResponseCache;
+import ru.yandex.taskmanager.manager.TypeTask;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+    private static final int TASKS = ResponseCache.tag(TypeTask.TASK);
+    private static final int SUBTASKS = ResponseCache.tag(TypeTask.SUBTASK);
+
+    private static byte[] body(int size) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) 'x');
+        return body;
+    }
+
+    @Test
+    void entryIsValidOnlyForItsVersion() {
+        ResponseCache cache = new ResponseCache(1 << 20, false);
+        cache.put("/tasks", 5, TASKS, body(10), Map.of("X-Next-Cursor", "3"));
+
+        assertNotNull(cache.get("/tasks", 5));
+        assertEquals("3", cache.get("/tasks", 5).headers().get("X-Next-Cursor"));
+        assertNull(cache.get("/tasks", 4), "Более старая версия не должна получать новый ответ");
+        assertNotNull(cache.get("/tasks", 5));
+        assertNull(cache.get("/tasks", 6));
+        assertEquals(0, cache.size(), "Устаревшая запись удаляется при чтении");
+
+        cache.put("/tasks", 7, TASKS, body(10), Map.of());
+        cache.put("/tasks", 6, TASKS, body(20), Map.of());
+        assertEquals(10, cache.get("/tasks", 7).body().length, "Запись по более свежим данным не заменяется");
+    }
+
+    @Test
+    void invalidateDropsOnlyDependentEntries() {
+        ResponseCache cache = new ResponseCache(1 << 20, false);
+        cache.put("/tasks", 1, TASKS, body(10), Map.of());
+        cache.put("/subtasks", 1, SUBTASKS, body(10), Map.of());
+        cache.put("/prioritized", 1, TASKS | SUBTASKS, body(10), Map.of());
+
+        cache.invalidate(TypeTask.SUBTASK);
+        assertNotNull(cache.get("/tasks", 1));
+        assertNull(cache.get("/subtasks", 1));
+        assertNull(cache.get("/prioritized", 1));
+        cache.invalidate(TypeTask.EPIC);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void leastRecentlyReadEntriesAreEvictedWithinBudget() {
+        ResponseCache cache = new ResponseCache(8 * 1024, false);
+        for (int i = 0; i < 5; i++) {
+            cache.put("/tasks?cursor=" + i, 1, TASKS, body(1000), Map.of());
+            cache.get("/tasks?cursor=0", 1);
+        }
+        for (int i = 5; i < 20; i++) {
+            cache.put("/tasks?cursor=" + i, 1, TASKS, body(1000), Map.of());
+            cache.get("/tasks?cursor=0", 1);
+        }
+        assertTrue(cache.usedBytes() <= 8 * 1024);
+        assertNotNull(cache.get("/tasks?cursor=0", 1), "Часто читаемая запись не должна вытесняться");
+        assertNull(cache.get("/tasks?cursor=1", 1));
+        assertNotNull(cache.get("/tasks?cursor=19", 1));
+
+        cache.put("/tasks/big", 1, TASKS, body(cache.maxEntryBytes() + 1), Map.of());
+        assertNull(cache.get("/tasks/big", 1), "Слишком большой ответ не кэшируется");
+    }
+
+    @Test
+    void gzipCopyDecompressesToBody() throws IOException {
+        ResponseCache cache = new ResponseCache(1 << 20, true);
+        byte[] json = "[{\"type\":\"TASK\",\"id\":1}]".repeat(200).getBytes(StandardCharsets.UTF_8);
+        cache.put("/tasks", 1, TASKS, json, Map.of());
+        cache.put("/small", 1, TASKS, body(10), Map.of());
+
+        ResponseCache.Entry entry = cache.get("/tasks", 1);
+        assertTrue(entry.gzipped().length < json.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entry.gzipped()))) {
+            assertEquals(new String(json, StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertNull(cache.get("/small", 1).gzipped(), "Короткий ответ не сжимается");
+    }
+}
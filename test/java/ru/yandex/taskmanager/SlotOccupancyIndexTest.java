@@ -0,0 +1,115 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.SlotOccupancyIndex;
+import ru.yandex.taskmanager.manager.TimeIntervalIndex;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotOccupancyIndexTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final LocalDateTime BASE = FIRST_DAY.atStartOfDay();
+
+    private static Task task(int id, int startMinutes, int durationMinutes) {
+        return new Task(id, "Task " + id, "Desc", TaskStatus.NEW,
+                Duration.ofMinutes(durationMinutes), BASE.plusMinutes(startMinutes));
+    }
+
+    @Test
+    void overlapMatchesIntervalIndex() {
+        SlotOccupancyIndex grid = new SlotOccupancyIndex(Duration.ofMinutes(15), FIRST_DAY, 3);
+        TimeIntervalIndex tree = new TimeIntervalIndex();
+        Random random = new Random(11);
+        List<Task> added = new ArrayList<>();
+        for (int i = 1; i <= 400; i++) {
+            // в основном по сетке, иногда со сдвигом и за горизонтом
+            int start = random.nextInt(4 * 24 * 4) * 15 + (i % 9 == 0 ? 7 : 0);
+            int duration = (1 + random.nextInt(8)) * 15 + (i % 11 == 0 ? 5 : 0);
+            Task task = task(i, start, duration);
+            assertEquals(tree.hasOverlap(task), grid.isOnGrid(task) ? grid.hasOverlap(task) : tree.hasOverlap(task),
+                    "Разный ответ для задачи " + i);
+            if (!tree.hasOverlap(task) || i % 3 == 0) {
+                tree.add(task);
+                grid.add(task);
+                added.add(task);
+            }
+            if (i % 5 == 0) {
+                Task removed = added.remove(random.nextInt(added.size()));
+                tree.remove(removed);
+                grid.remove(removed);
+            }
+        }
+
+        for (Task task : added) {
+            if (grid.isOnGrid(task)) {
+                assertEquals(tree.hasOverlap(task), grid.hasOverlap(task), "Задача " + task.getId());
+            }
+        }
+    }
+
+    @Test
+    void earliestGapMatchesIntervalIndexOnGrid() {
+        SlotOccupancyIndex grid = new SlotOccupancyIndex(Duration.ofMinutes(15), FIRST_DAY, 2);
+        TimeIntervalIndex tree = new TimeIntervalIndex();
+        Random random = new Random(3);
+        for (int i = 1; i <= 150; i++) {
+            Task task = task(i, random.nextInt(2 * 24 * 4 - 8) * 15, (1 + random.nextInt(8)) * 15);
+            if (!tree.hasOverlap(task)) {
+                tree.add(task);
+                grid.add(task);
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(2 * 24 * 4 - 10) * 15);
+            Duration duration = Duration.ofMinutes((1 + random.nextInt(10)) * 15);
+            assertEquals(tree.findEarliestGap(from, duration), grid.findEarliestGap(from, duration));
+        }
+
+        // вне сетки сетка не отвечает
+        assertEquals(null, grid.findEarliestGap(BASE.plusMinutes(1), Duration.ofMinutes(15)));
+        grid.add(task(1_000, 7, 15));
+        assertEquals(null, grid.findEarliestGap(BASE, Duration.ofMinutes(15)));
+    }
+
+    @Test
+    void rejectsSlotNotDividingDay() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlotOccupancyIndex(Duration.ofMinutes(7), FIRST_DAY, 1));
+    }
+
+    @Test
+    void managerInCalendarModeKeepsOverlapRules() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.createTask(task(0, 60, 30)); // 01:00-01:30, до включения сетки
+        manager.useSlotGrid(Duration.ofMinutes(15), FIRST_DAY, 7);
+        manager.createTask(task(0, 10, 20)); // 00:10-00:30, вне сетки
+
+        assertTrue(manager.hasTimeOverlap(task(0, 75, 15)));
+        assertTrue(manager.hasTimeOverlap(task(0, 15, 15)));
+        assertFalse(manager.hasTimeOverlap(task(0, 30, 30)));
+
+        Task moved = task(1, 75, 30); // та же задача 1 со сдвигом на свои же слоты
+        assertFalse(manager.hasTimeOverlap(moved));
+        manager.updateTask(moved);
+        assertFalse(manager.hasTimeOverlap(task(0, 60, 15)));
+
+        manager.deleteTaskId(2);
+        assertEquals(BASE, manager.findEarliestSlot(BASE, Duration.ofMinutes(75)));
+        assertEquals(BASE.plusMinutes(105), manager.findEarliestSlot(BASE, Duration.ofMinutes(90)));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.TaskCsvFormat;
+import ru.yandex.taskmanager.manager.TaskCsvReader;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskCsvTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_000_000);
+
+    @Test
+    void fieldsWithSpecialCharactersSurviveRoundTrip() {
+        Task task = new Task(3, "Купить молоко, хлеб", "Сказал \"срочно\"\nвторая строка\\конец",
+                TaskStatus.IN_PROGRESS, Duration.ofMinutes(45), START);
+
+        String line = TaskCsvFormat.format(task);
+        Task parsed = TaskCsvFormat.parse(line);
+
+        assertFalse(line.contains("\n"), "Запись должна занимать одну строку");
+        assertEquals(task.getId(), parsed.getId());
+        assertEquals(task.getName(), parsed.getName());
+        assertEquals(task.getDescription(), parsed.getDescription());
+        assertEquals(task.getStatus(), parsed.getStatus());
+        assertEquals(task.getDuration(), parsed.getDuration());
+        assertEquals(START, parsed.getStartTime());
+    }
+
+    @Test
+    void readerStreamsRecordsAndSkipsBrokenOnes() throws IOException {
+        Epic epic = new Epic(1, "Эпик", "Описание", TaskStatus.NEW, Duration.ZERO, null, null);
+        Subtask subtask = new Subtask(2, "Под,задача", "Описание", TaskStatus.DONE, 1,
+                Duration.ofMinutes(10), START.withNano(0));
+        String text = TaskCsvFormat.HEADER + "\r\n"
+                + TaskCsvFormat.format(subtask) + "\r\n"
+                + "\n"
+                + "x,TASK,Битая,NEW,Описание,,,,\n"
+                + TaskCsvFormat.format(epic);
+
+        try (TaskCsvReader reader = new TaskCsvReader(new StringReader(text))) {
+            Subtask first = (Subtask) reader.next();
+            assertEquals("Под,задача", first.getName());
+            assertEquals(1, first.getEpicId());
+            assertEquals(START.withNano(0), first.getStartTime());
+
+            assertThrows(RuntimeException.class, reader::next);
+            assertEquals(4, reader.lineNumber());
+
+            Epic second = (Epic) reader.next();
+            assertEquals(1, second.getId());
+            assertNull(second.getStartTime());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void legacyUnquotedLineIsParsed() {
+        Task task = TaskCsvFormat.parse("5,TASK,Задача,NEW,Описание,,30,2024-01-01T10:00,");
+
+        assertEquals(5, task.getId());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), task.getStartTime());
+    }
+}
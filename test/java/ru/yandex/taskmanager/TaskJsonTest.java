@@ -0,0 +1,97 @@
+package ru.yandex.taskmanager;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.HttpTaskServer;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+import ru.yandex.taskmanager.util.LocalDateTimeAdapter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskJsonTest {
+    private final Gson gson = HttpTaskServer.getGson();
+
+    @Test
+    void mixedListKeepsTypesAndFields() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 30, 15);
+        Epic epic = new Epic(1, "Epic", "Desc", TaskStatus.IN_PROGRESS, Duration.ofHours(2), start, start.plusHours(3));
+        epic.addSubtask(2);
+        epic.addSubtask(5);
+        List<Task> tasks = List.of(
+                new Task(3, "Task", "Desc \"quoted\"", TaskStatus.NEW, Duration.ofMinutes(15), start),
+                new Subtask(2, "Subtask", "Desc", TaskStatus.DONE, 1, Duration.ofMinutes(30), start),
+                epic);
+
+        String json = gson.toJson(tasks);
+        List<Task> read = gson.fromJson(json, new TypeToken<List<Task>>() {
+        }.getType());
+
+        assertEquals(tasks, read);
+        assertEquals(Task.class, read.get(0).getClass());
+        assertEquals("Desc \"quoted\"", read.get(0).getDescription());
+        assertEquals(Duration.ofMinutes(15), read.get(0).getDuration());
+        assertEquals(start, read.get(0).getStartTime());
+        assertEquals(1, ((Subtask) read.get(1)).getEpicId());
+        Epic readEpic = (Epic) read.get(2);
+        assertEquals(2, readEpic.getSubtaskIds().size());
+        assertEquals(5, readEpic.getSubtaskIds().get(1));
+        assertEquals(start.plusHours(3), readEpic.getEndTime());
+        assertEquals(TaskStatus.IN_PROGRESS, readEpic.getStatus());
+    }
+
+    @Test
+    void objectWithoutTypeIsReadAsRequestedClass() {
+        Subtask subtask = gson.fromJson("{\"name\":\"S\",\"status\":\"NEW\",\"epicId\":7,\"extra\":[1,{}]}",
+                Subtask.class);
+        assertEquals(7, subtask.getEpicId());
+        assertNull(subtask.getDuration());
+
+        Task task = gson.fromJson("{\"type\":\"SUBTASK\",\"name\":\"S\",\"epicId\":7}", Task.class);
+        assertTrue(task instanceof Subtask);
+
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"type\":\"EPIC\"}", Subtask.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"status\":\"LATER\"}", Task.class));
+    }
+
+    @Test
+    void nullFieldsAreOmitted() {
+        String json = gson.toJson(new Task(4, "Task", null, TaskStatus.NEW));
+        assertFalse(json.contains("description"), json);
+        assertFalse(json.contains("startTime"), json);
+        assertNull(gson.fromJson("{\"id\":4,\"startTime\":null}", Task.class).getStartTime());
+    }
+
+    @Test
+    void timestampCodecMatchesFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        Random random = new Random(9);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime time = LocalDateTime.of(1 + random.nextInt(9999), 1, 1, 0, 0)
+                    .plusSeconds(random.nextInt(366 * 24 * 3600));
+            String text = formatter.format(time);
+            assertEquals(text, LocalDateTimeAdapter.format(time));
+            assertEquals(LocalDateTime.parse(text, formatter), LocalDateTimeAdapter.parse(text));
+        }
+        // значения вне фиксированного вида разбирает DateTimeFormatter, с его правилами и ошибками
+        assertEquals(LocalDateTime.parse("2023-02-31 10:00:00", formatter),
+                LocalDateTimeAdapter.parse("2023-02-31 10:00:00"));
+        assertThrows(DateTimeParseException.class, () -> LocalDateTimeAdapter.parse("2024-01-01T10:00:00"));
+        assertThrows(DateTimeParseException.class, () -> LocalDateTimeAdapter.parse("2024-13-01 10:00:00"));
+    }
+}
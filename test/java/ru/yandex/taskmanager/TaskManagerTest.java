@@ -15,6 +15,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -58,6 +59,15 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(task1, savedTask, "Задачи не совпадают");
     }
 
+    @Test
+    void testExplicitIdIsReserved() {
+        taskManager.createTask(task2); // явный id 6
+        Task generated = new Task(0, "Generated", "Desc", TaskStatus.NEW);
+        taskManager.createTask(generated);
+        assertTrue(generated.getId() > task2.getId(), "Сгенерированный id совпал с явным");
+        assertEquals(2, taskManager.getAllTasks().size());
+    }
+
     @Test
     void testCreateAndGetEpic() throws NotFoundException {
         Epic newEpic = new Epic(7, "New Epic", "Desc", TaskStatus.NEW);
@@ -67,6 +77,152 @@ public abstract class TaskManagerTest<T extends TaskManager> {
     }
 
 
+    @Test
+    void testTasksPageByIdCursor() {
+        for (int i = 0; i < 25; i++) {
+            taskManager.createTask(new Task(0, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+        List<Task> all = taskManager.getAllTasks();
+        taskManager.deleteTaskId(all.get(3).getId());
+
+        List<Integer> ids = new ArrayList<>();
+        int cursor = 0;
+        List<Task> page;
+        while (!(page = taskManager.getTasksPage(cursor, 10)).isEmpty()) {
+            page.forEach(task -> ids.add(task.getId()));
+            cursor = page.get(page.size() - 1).getId();
+        }
+
+        assertEquals(24, ids.size(), "Страницы должны покрыть все задачи");
+        assertEquals(ids.stream().sorted().toList(), ids, "Страницы должны идти по возрастанию id");
+        assertEquals(List.of(1), taskManager.getEpicsPage(0, 5).stream().map(Epic::getId).toList());
+        assertTrue(taskManager.getSubtasksPage(0, 5).isEmpty());
+    }
+
+    @Test
+    void testAutoScheduleFillsGaps() {
+        taskManager.createTask(task1); // 2023-01-02 10:00-12:00
+        taskManager.createTask(task2); // 2023-01-02 12:00-13:00
+        LocalDateTime from = LocalDateTime.of(2023, 1, 2, 9, 0);
+
+        assertEquals(LocalDateTime.of(2023, 1, 2, 13, 0),
+                taskManager.findEarliestSlot(from, Duration.ofMinutes(90)));
+
+        List<Task> batch = List.of(
+                new Task(0, "Short", "Desc", TaskStatus.NEW, Duration.ofMinutes(30), null),
+                new Task(0, "Long", "Desc", TaskStatus.NEW, Duration.ofHours(2), null),
+                new Task(0, "Another short", "Desc", TaskStatus.NEW, Duration.ofMinutes(30), null));
+        List<Task> scheduled = taskManager.autoSchedule(batch, from);
+
+        assertEquals(LocalDateTime.of(2023, 1, 2, 9, 0), scheduled.get(0).getStartTime());
+        assertEquals(LocalDateTime.of(2023, 1, 2, 13, 0), scheduled.get(1).getStartTime());
+        assertEquals(LocalDateTime.of(2023, 1, 2, 9, 30), scheduled.get(2).getStartTime());
+        assertEquals(5, taskManager.getPrioritizedTasks().size());
+        for (Task task : scheduled) {
+            assertFalse(taskManager.hasTimeOverlap(task), "Запланированная задача пересекается с другими");
+        }
+    }
+
+    @Test
+    void testAutoScheduleKeepsIdOfStoredSubtask() {
+        taskManager.createSubtask(subtask1);
+        int id = subtask1.getId();
+        Subtask moved = new Subtask(id, "Subtask 1", "Desc 1", TaskStatus.DONE, epic.getId(),
+                Duration.ofHours(1), null);
+        taskManager.autoSchedule(List.of(moved), LocalDateTime.of(2023, 1, 1, 10, 0));
+
+        assertEquals(id, moved.getId(), "Перепланированная подзадача должна сохранить id");
+        assertEquals(LocalDateTime.of(2023, 1, 1, 10, 0), moved.getStartTime());
+        assertEquals(1, taskManager.getAllSubTasks().size());
+        assertEquals(1, taskManager.getSubtasksEpic(epic.getId()).size());
+        assertEquals(List.of(moved), taskManager.getPrioritizedTasks());
+        assertEquals(TaskStatus.DONE, taskManager.findById(epic.getId()).getStatus(),
+                "Эпик должен учитывать подзадачу один раз");
+    }
+
+    @Test
+    void testUpdateSubtaskMovesItToAnotherEpic() {
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask3);
+        Epic other = new Epic(0, "Other", "Desc", TaskStatus.NEW);
+        taskManager.createEpic(other);
+
+        Subtask moved = new Subtask(subtask3.getId(), "Subtask 3", "Desc 3", TaskStatus.DONE, other.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2023, 1, 1, 15, 0));
+        taskManager.updateSubtask(moved);
+
+        assertEquals(List.of(subtask1), taskManager.getSubtasksEpic(epic.getId()), "Подзадача осталась в прежнем эпике");
+        assertEquals(List.of(moved), taskManager.getSubtasksEpic(other.getId()), "Подзадача не перешла в новый эпик");
+        assertEquals(TaskStatus.NEW, taskManager.findById(epic.getId()).getStatus());
+        assertEquals(LocalDateTime.of(2023, 1, 1, 11, 0), taskManager.findById(epic.getId()).getEndTime());
+        assertEquals(TaskStatus.DONE, taskManager.findById(other.getId()).getStatus());
+        assertEquals(2, taskManager.getAllSubTasks().size());
+    }
+
+    @Test
+    void testAutoScheduleReservesExplicitId() {
+        Task explicit = new Task(50, "Explicit", "Desc", TaskStatus.NEW, Duration.ofHours(1), null);
+        taskManager.autoSchedule(List.of(explicit), LocalDateTime.of(2023, 1, 3, 10, 0));
+        Task generated = new Task(0, "Generated", "Desc", TaskStatus.NEW);
+        taskManager.createTask(generated);
+
+        assertTrue(generated.getId() > 50, "Сгенерированный id совпал с явным");
+        assertEquals(explicit, taskManager.findById(50), "Запланированная задача перезаписана");
+        assertEquals(2, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void testUpdateEpicKeepsStoredSubtasks() {
+        taskManager.createSubtask(subtask1);
+        taskManager.createTask(task1);
+        Epic update = new Epic(epic.getId(), "Renamed", "New desc", TaskStatus.DONE);
+        update.addSubtask(task1.getId()); // чужой id из запроса
+
+        taskManager.updateEpic(update);
+
+        assertEquals("Renamed", taskManager.findById(epic.getId()).getName());
+        assertEquals(List.of(subtask1), taskManager.getSubtasksEpic(epic.getId()), "Состав эпика взят из запроса");
+        taskManager.deleteEpicId(epic.getId());
+        assertTrue(taskManager.getAllSubTasks().isEmpty(), "Подзадачи эпика остались после удаления");
+        assertEquals(1, taskManager.getAllTasks().size(), "Удалена чужая задача");
+    }
+
+    @Test
+    void testSaveIfNoOverlapRejectsOverlap() {
+        assertTrue(taskManager.saveTaskIfNoOverlap(task1)); // 2023-01-02 10:00-12:00
+        Task overlapping = new Task(0, "Overlap", "Desc", TaskStatus.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2023, 1, 2, 11, 0));
+        assertFalse(taskManager.saveTaskIfNoOverlap(overlapping));
+        assertEquals(0, overlapping.getId(), "Пересекающаяся задача не должна сохраняться");
+        assertEquals(1, taskManager.getAllTasks().size());
+
+        task1.setDuration(Duration.ofHours(3));
+        assertTrue(taskManager.saveTaskIfNoOverlap(task1), "Задача не пересекается сама с собой");
+        Subtask subtask = new Subtask(0, "Sub", "Desc", TaskStatus.NEW, epic.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2023, 1, 2, 12, 30));
+        assertFalse(taskManager.saveSubtaskIfNoOverlap(subtask));
+        assertTrue(taskManager.getAllSubTasks().isEmpty());
+    }
+
+    @Test
+    void testVersionsGrowWithChanges() {
+        long tasksVersion = taskManager.getVersion(TypeTask.TASK);
+        long epicsVersion = taskManager.getVersion(TypeTask.EPIC);
+        taskManager.createTask(task1);
+        assertTrue(taskManager.getVersion(TypeTask.TASK) > tasksVersion);
+        assertEquals(epicsVersion, taskManager.getVersion(TypeTask.EPIC));
+
+        long epicVersion = taskManager.getEntityVersion(epic.getId());
+        long taskVersion = taskManager.getEntityVersion(task1.getId());
+        taskManager.createSubtask(new Subtask(0, "Sub", "Desc", TaskStatus.DONE, epic.getId()));
+        assertTrue(taskManager.getEntityVersion(epic.getId()) > epicVersion, "Эпик пересчитан по подзадаче");
+        assertEquals(taskVersion, taskManager.getEntityVersion(task1.getId()));
+        assertTrue(taskManager.getVersion() >= taskManager.getVersion(TypeTask.SUBTASK));
+
+        taskManager.deleteTaskId(task1.getId());
+        assertEquals(0L, taskManager.getEntityVersion(task1.getId()));
+    }
+
     /* Тесты временных интервалов */
     @Nested
     class TimeIntervalTests {
@@ -170,6 +326,13 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
     }
 }
 
+class ConcurrentTaskManagerTests extends TaskManagerTest<ConcurrentTaskManager> {
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager(new InMemoryHistoryManager());
+    }
+}
+
 
 class FileBackedTaskManagerTests extends TaskManagerTest<FileBackedTaskManager> {
     private Path tempFile;
@@ -0,0 +1,134 @@
+package ru.yandex.taskmanager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.TimeIntervalIndex;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 10, 0);
+    private TimeIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TimeIntervalIndex();
+    }
+
+    private Task task(int id, int startMinutes, int durationMinutes) {
+        return new Task(id, "Task " + id, "Desc", TaskStatus.NEW,
+                Duration.ofMinutes(durationMinutes), BASE.plusMinutes(startMinutes));
+    }
+
+    @Test
+    void testOverlapDetection() {
+        for (int i = 0; i < 100; i++) {
+            index.add(task(i + 1, i * 60, 30));
+        }
+
+        assertTrue(index.hasOverlap(task(500, 10, 10)), "Задача внутри интервала должна пересекаться");
+        assertTrue(index.hasOverlap(task(500, 50, 20)), "Задача на границе должна пересекаться");
+        assertFalse(index.hasOverlap(task(500, 30, 30)), "Задача в промежутке не должна пересекаться");
+        assertFalse(index.hasOverlap(task(1, 0, 45)), "Задача не должна пересекаться сама с собой");
+    }
+
+    @Test
+    void testFindOverlappingWindow() {
+        index.add(task(1, 0, 60));
+        index.add(task(2, 120, 60));
+        index.add(task(3, 240, 60));
+
+        List<Task> found = index.findOverlapping(BASE.plusMinutes(30), BASE.plusMinutes(150));
+        assertEquals(List.of(task(1, 0, 0), task(2, 0, 0)), found, "Неверные задачи в окне");
+    }
+
+    @Test
+    void testFindStartingFromMatchesFullScan() {
+        for (int i = 0; i < 500; i++) {
+            index.add(task(i + 1, (i * 37) % 1000, 5));
+        }
+        List<Task> all = index.toList();
+        for (int minute : new int[]{-10, 0, 333, 999, 1000}) {
+            LocalDateTime from = BASE.plusMinutes(minute);
+            List<Task> expected = all.stream()
+                    .filter(task -> !task.getStartTime().isBefore(from))
+                    .limit(20)
+                    .toList();
+            assertEquals(expected, index.findStartingFrom(from, 20), "Неверные задачи после " + from);
+        }
+    }
+
+    @Test
+    void testEarliestGapMatchesBruteForce() {
+        Random random = new Random(5);
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Task task = task(i + 1, random.nextInt(3_000), 1 + random.nextInt(20));
+            index.add(task);
+            added.add(task);
+            if (i % 7 == 0) {
+                index.remove(added.remove(random.nextInt(added.size())));
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(3_200) - 100);
+            Duration duration = Duration.ofMinutes(1 + random.nextInt(40));
+            assertEquals(bruteForceGap(added, from, duration), index.findEarliestGap(from, duration),
+                    "Неверное место для " + duration + " после " + from);
+        }
+    }
+
+    private static LocalDateTime bruteForceGap(List<Task> tasks, LocalDateTime from, Duration duration) {
+        List<LocalDateTime> candidates = new ArrayList<>();
+        candidates.add(from);
+        tasks.stream().map(Task::getEndTime).filter(end -> end.isAfter(from)).forEach(candidates::add);
+        candidates.sort(null);
+        for (LocalDateTime start : candidates) {
+            LocalDateTime end = start.plus(duration);
+            boolean free = tasks.stream()
+                    .noneMatch(task -> task.getStartTime().isBefore(end) && start.isBefore(task.getEndTime()));
+            if (free) {
+                return start;
+            }
+        }
+        throw new AssertionError("Место всегда есть после последней задачи");
+    }
+
+    @Test
+    void testRemoveKeepsOrder() {
+        index.add(task(1, 120, 10));
+        index.add(task(2, 0, 10));
+        index.add(task(3, 60, 10));
+        index.remove(task(2, 0, 0));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(task(3, 0, 0), task(1, 0, 0)), index.toList(), "Нарушен порядок задач");
+        assertFalse(index.hasOverlap(task(4, 0, 10)), "Удалённая задача осталась в индексе");
+    }
+
+    @Test
+    void testManagerKeepsIndexInSync() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        manager.createTask(task(1, 0, 60));
+        manager.updateTask(task(1, 120, 60));
+
+        assertFalse(manager.hasTimeOverlap(task(2, 0, 60)), "Старый интервал не удалён после обновления");
+        assertTrue(manager.hasTimeOverlap(task(2, 150, 10)), "Новый интервал не добавлен после обновления");
+
+        manager.deleteAllTasks();
+        assertTrue(manager.getPrioritizedTasks().isEmpty(), "Индекс не очищен после удаления задач");
+    }
+}
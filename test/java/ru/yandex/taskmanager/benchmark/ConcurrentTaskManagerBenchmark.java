@@ -0,0 +1,97 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.NotFoundException;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Пропускная способность ConcurrentTaskManager против InMemoryTaskManager
+// под одной глобальной блокировкой. Смесь: 90% чтений по id, 10% записей.
+// Запуск: java ru.yandex.taskmanager.benchmark.ConcurrentTaskManagerBenchmark
+public class ConcurrentTaskManagerBenchmark {
+    private static final int TASKS = 10_000;
+    private static final int EPICS = 256;
+    private static final long RUN_MILLIS = 2_000;
+
+    interface Operation {
+        void run(TaskManager manager, int id, boolean write);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-8s %18s %18s%n", "threads", "synchronized op/s", "concurrent op/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            TaskManager baseline = fill(new InMemoryTaskManager(new InMemoryHistoryManager()));
+            Object globalLock = new Object();
+            long synchronizedOps = measure(threads, baseline, (manager, id, write) -> {
+                synchronized (globalLock) {
+                    step(manager, id, write);
+                }
+            });
+
+            TaskManager concurrent = fill(new ConcurrentTaskManager(new InMemoryHistoryManager()));
+            long concurrentOps = measure(threads, concurrent, ConcurrentTaskManagerBenchmark::step);
+
+            System.out.printf("%-8d %18d %18d%n", threads, synchronizedOps, concurrentOps);
+        }
+    }
+
+    private static TaskManager fill(TaskManager manager) {
+        for (int i = 1; i <= TASKS; i++) {
+            manager.createTask(new Task(i, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+        for (int i = 0; i < EPICS; i++) {
+            manager.createEpic(new Epic(0, "Epic " + i, "Desc", TaskStatus.NEW));
+        }
+        return manager;
+    }
+
+    private static void step(TaskManager manager, int id, boolean write) {
+        if (!write) {
+            try {
+                manager.getTaskId(id);
+            } catch (NotFoundException ignored) {
+                // в наборе есть все id
+            }
+        } else if (id % 2 == 0) {
+            manager.updateTask(new Task(id, "Task " + id, "Updated", TaskStatus.IN_PROGRESS));
+        } else {
+            // эпики получают id TASKS+1..TASKS+EPICS, следом за явными id задач
+            manager.createSubtask(new Subtask(0, "Subtask", "Desc", TaskStatus.NEW, TASKS + 1 + id % EPICS));
+        }
+    }
+
+    private static long measure(int threads, TaskManager manager, Operation operation)
+            throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        long deadline = System.nanoTime() + RUN_MILLIS * 1_000_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    operation.run(manager, 1 + random.nextInt(TASKS), random.nextInt(10) == 0);
+                    done++;
+                }
+                ops.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() * 1_000 / RUN_MILLIS;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.BoundedHistoryManager;
+import ru.yandex.taskmanager.manager.HistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Скорость и выделение памяти на один просмотр для реализаций истории.
+// Запуск: java ru.yandex.taskmanager.benchmark.HistoryBenchmark
+public class HistoryBenchmark {
+    private static final int TASKS = 100_000;
+    private static final int VIEWS = 5_000_000;
+
+    public static void main(String[] args) {
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "Description", TaskStatus.NEW);
+        }
+        for (int round = 0; round < 3; round++) {
+            run("InMemoryHistoryManager", new InMemoryHistoryManager(), tasks);
+            BoundedHistoryManager bounded = new BoundedHistoryManager(10_000);
+            bounded.setTaskResolver(id -> tasks[id - 1]);
+            run("BoundedHistoryManager", bounded, tasks);
+        }
+    }
+
+    private static void run(String name, HistoryManager history, Task[] tasks) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Random random = new Random(1);
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < VIEWS; i++) {
+            history.add(tasks[random.nextInt(tasks.length)]);
+            if (i % 16 == 0) {
+                history.remove(random.nextInt(tasks.length) + 1);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-24s %,12d views/s %8.1f bytes/view, history=%d%n", name,
+                VIEWS * 1_000_000_000L / elapsed, (double) allocated / VIEWS, history.getHistory().size());
+    }
+}
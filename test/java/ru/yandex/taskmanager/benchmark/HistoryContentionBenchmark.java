@@ -0,0 +1,74 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.BoundedHistoryManager;
+import ru.yandex.taskmanager.manager.BufferedHistoryManager;
+import ru.yandex.taskmanager.manager.HistoryManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Просмотры из нескольких потоков: история под общей блокировкой
+// против BufferedHistoryManager поверх той же истории.
+// Запуск: java ru.yandex.taskmanager.benchmark.HistoryContentionBenchmark
+public class HistoryContentionBenchmark {
+    private static final int TASKS = 100_000;
+    private static final long RUN_MILLIS = 2_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "Description", TaskStatus.NEW);
+        }
+        int maxThreads = Math.max(Runtime.getRuntime().availableProcessors(), 4);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            BoundedHistoryManager locked = new BoundedHistoryManager(10_000);
+            locked.setTaskResolver(id -> tasks[id - 1]);
+            long lockedRate = run(task -> {
+                synchronized (locked) {
+                    locked.add(task);
+                }
+            }, tasks, threads);
+
+            BoundedHistoryManager inner = new BoundedHistoryManager(10_000);
+            inner.setTaskResolver(id -> tasks[id - 1]);
+            BufferedHistoryManager buffered = new BufferedHistoryManager(inner, Duration.ofMillis(10));
+            long bufferedRate = run(buffered::add, tasks, threads);
+            buffered.close();
+
+            System.out.printf("threads=%2d  synchronized %,12d views/s  buffered %,12d views/s%n",
+                    threads, lockedRate, bufferedRate);
+        }
+    }
+
+    interface View {
+        void accept(Task task);
+    }
+
+    private static long run(View view, Task[] tasks, int threads) throws InterruptedException {
+        LongAdder views = new LongAdder();
+        long deadline = System.currentTimeMillis() + RUN_MILLIS;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while ((done & 1023) != 0 || System.currentTimeMillis() < deadline) {
+                    view.accept(tasks[random.nextInt(tasks.length)]);
+                    done++;
+                }
+                views.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return views.sum() * 1000 / RUN_MILLIS;
+    }
+}
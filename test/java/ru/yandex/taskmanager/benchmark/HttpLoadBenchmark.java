@@ -0,0 +1,109 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.ClientHistories;
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
+import ru.yandex.taskmanager.manager.HttpTaskServer;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.ServerExecution;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузочный тест HttpTaskServer: пропускная способность при растущем числе
+// одновременных клиентов для разных моделей выполнения. Смесь: 95% GET /tasks/{id},
+// 5% POST /tasks; сохранение задачи медленное (SAVE_MILLIS), как запись на диск,
+// поэтому на потоке диспетчера оно задерживает все остальные запросы.
+// Запуск: java ru.yandex.taskmanager.benchmark.HttpLoadBenchmark
+public class HttpLoadBenchmark {
+    private static final int TASKS = 1_000;
+    private static final int MAX_CLIENTS = 64;
+    private static final long SAVE_MILLIS = 5;
+    private static final long RUN_MILLIS = 2_000;
+
+    // Потокобезопасный менеджер с медленным сохранением
+    private static class SlowSaveManager extends ConcurrentTaskManager {
+        SlowSaveManager() {
+            super(new InMemoryHistoryManager());
+        }
+
+        @Override
+        public void createTask(Task task) {
+            try {
+                Thread.sleep(SAVE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.createTask(task);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.enableNoDelay(); // процесс бенчмарка - как запуск через main сервера
+        ServerExecution[] executions = {
+                ServerExecution.dispatcherThread(ServerExecution.DEFAULT_BACKLOG),
+                ServerExecution.platformPool(16, 1_024, ServerExecution.DEFAULT_BACKLOG),
+                ServerExecution.virtualThreads()};
+        System.out.printf("%-8s", "clients");
+        for (ServerExecution execution : executions) {
+            System.out.printf(" %28s", execution.toString().replace(", backlog 1024", "") + " req/s");
+        }
+        System.out.println();
+        for (int clients = 1; clients <= MAX_CLIENTS; clients *= 4) {
+            StringBuilder row = new StringBuilder(String.format("%-8d", clients));
+            for (ServerExecution execution : executions) {
+                row.append(String.format(" %28d", measure(execution, clients)));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static long measure(ServerExecution execution, int clients) throws Exception {
+        TaskManager manager = new SlowSaveManager();
+        for (int i = 1; i <= TASKS; i++) {
+            manager.createTask(new Task(i, "Task " + i, "Desc", TaskStatus.NEW));
+        }
+        HttpTaskServer server = new HttpTaskServer(manager, 0, new ClientHistories(manager::findById), execution);
+        server.start();
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            String base = "http://localhost:" + server.getPort() + "/tasks";
+            HttpRequest create = HttpRequest.newBuilder().uri(URI.create(base))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"New\",\"description\":\"Desc\",\"status\":\"NEW\"}"))
+                    .build();
+            LongAdder requests = new LongAdder();
+            long deadline = System.nanoTime() + RUN_MILLIS * 1_000_000;
+            List<Thread> workers = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                workers.add(Thread.ofVirtual().start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = random.nextInt(100) < 5 ? create
+                                : HttpRequest.newBuilder(URI.create(base + "/" + (1 + random.nextInt(TASKS)))).build();
+                        try {
+                            client.send(request, HttpResponse.BodyHandlers.discarding());
+                            requests.increment();
+                        } catch (IOException | InterruptedException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            return requests.sum() * 1_000 / RUN_MILLIS;
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.taskmanager.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import ru.yandex.taskmanager.manager.HttpTaskServer;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+import ru.yandex.taskmanager.util.IntIndexedSet;
+import ru.yandex.taskmanager.util.IntIndexedSetAdapter;
+import ru.yandex.taskmanager.util.LocalDateTimeAdapter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Сериализация и разбор списка задач: рефлексия Gson с DateTimeFormatter (как было)
+// против ручных TypeAdapter. Для каждого варианта - операций в секунду и байт,
+// выделенных на одну задачу (по счётчику выделений потока).
+// Запуск: java ru.yandex.taskmanager.benchmark.JsonBenchmark
+public class JsonBenchmark {
+    private static final int TASKS = 10_000;
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 20;
+    private static final Type TASK_LIST = new TypeToken<List<Task>>() {
+    }.getType();
+
+    private static volatile Object sink; // результат, чтобы JIT не выбросил работу
+
+    // Прежний адаптер времени через DateTimeFormatter
+    private static class FormatterAdapter extends TypeAdapter<LocalDateTime> {
+        private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(formatter.format(value));
+            }
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            return LocalDateTime.parse(in.nextString(), formatter);
+        }
+    }
+
+    interface Operation {
+        Object run();
+    }
+
+    public static void main(String[] args) {
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new FormatterAdapter())
+                .registerTypeAdapter(Duration.class, new LocalDateTimeAdapter.DurationAdapter())
+                .registerTypeAdapter(IntIndexedSet.class, new IntIndexedSetAdapter())
+                .create();
+        Gson handWritten = HttpTaskServer.getGson();
+        List<Task> tasks = tasks();
+        String reflectiveJson = reflective.toJson(tasks);
+        String handWrittenJson = handWritten.toJson(tasks);
+
+        System.out.printf("%-22s %12s %12s%n", "operation", "tasks/s", "bytes/task");
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.println("round " + round);
+            measure("serialize reflective", () -> reflective.toJson(tasks));
+            measure("serialize adapters", () -> handWritten.toJson(tasks));
+            measure("parse reflective", () -> reflective.fromJson(reflectiveJson, TASK_LIST));
+            measure("parse adapters", () -> handWritten.fromJson(handWrittenJson, TASK_LIST));
+        }
+    }
+
+    private static List<Task> tasks() {
+        List<Task> tasks = new ArrayList<>(TASKS);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int epicId = 0;
+        for (int id = 1; id <= TASKS; id++) {
+            if (id % 10 == 1) {
+                epicId = id;
+                Epic epic = new Epic(id, "Epic " + id, "Description", TaskStatus.NEW,
+                        Duration.ofHours(5), base, base.plusHours(5));
+                for (int i = 1; i < 10; i += 2) {
+                    epic.addSubtask(id + i);
+                }
+                tasks.add(epic);
+            } else if (id % 2 == 0) {
+                tasks.add(new Subtask(id, "Subtask " + id, "Description", TaskStatus.DONE, epicId,
+                        Duration.ofMinutes(30), base.plusMinutes(id * 30L)));
+            } else {
+                tasks.add(new Task(id, "Task " + id, "Description", TaskStatus.NEW,
+                        Duration.ofMinutes(30), base.plusMinutes(id * 30L)));
+            }
+        }
+        return tasks;
+    }
+
+    private static void measure(String name, Operation operation) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = operation.run();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long operations = (long) ITERATIONS * TASKS;
+        System.out.printf("%-22s %12d %12d%n", name, operations * 1_000_000_000L / elapsed,
+                allocated / operations);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.DurabilityPolicy;
+import ru.yandex.taskmanager.manager.FileBackedTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.PersistenceMode;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Скорость записи FileBackedTaskManager в разных режимах сохранения.
+// Запуск: java ru.yandex.taskmanager.benchmark.PersistenceBenchmark
+public class PersistenceBenchmark {
+    private static final int OPERATIONS = 5_000;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("persistence-benchmark");
+        run("SNAPSHOT", dir, PersistenceMode.SNAPSHOT, null);
+        run("JOURNAL", dir, PersistenceMode.JOURNAL, null);
+        run("WRITE_BEHIND sync", dir, PersistenceMode.WRITE_BEHIND, DurabilityPolicy.sync());
+        run("WRITE_BEHIND 100ms", dir, PersistenceMode.WRITE_BEHIND,
+                DurabilityPolicy.periodic(Duration.ofMillis(100)));
+        run("WRITE_BEHIND os", dir, PersistenceMode.WRITE_BEHIND, DurabilityPolicy.osBuffered());
+    }
+
+    private static void run(String name, Path dir, PersistenceMode mode, DurabilityPolicy policy) {
+        Path file = dir.resolve(name.replace(' ', '_') + ".csv");
+        FileBackedTaskManager manager = policy == null
+                ? new FileBackedTaskManager(new InMemoryHistoryManager(), file, mode)
+                : new FileBackedTaskManager(new InMemoryHistoryManager(), file, mode, Long.MAX_VALUE, policy);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            manager.createTask(new Task(0, "Task " + i, "Description", TaskStatus.NEW));
+        }
+        manager.awaitDurable();
+        long elapsed = System.nanoTime() - start;
+        manager.close();
+
+        System.out.printf("%-20s %10d op/s%n", name, OPERATIONS * 1_000_000_000L / elapsed);
+    }
+}
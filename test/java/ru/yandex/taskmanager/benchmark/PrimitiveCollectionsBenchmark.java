@@ -0,0 +1,95 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+import ru.yandex.taskmanager.util.IntIndexedSet;
+import ru.yandex.taskmanager.util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Память и скорость IntObjectHashMap/IntIndexedSet против HashMap<Integer, Task>/List<Integer>.
+// Запуск: java -Xmx2g ru.yandex.taskmanager.benchmark.PrimitiveCollectionsBenchmark
+public class PrimitiveCollectionsBenchmark {
+    private static final int ENTRIES = 1_000_000;
+    private static final int MEMBERS = 20_000;
+
+    public static void main(String[] args) {
+        Task[] tasks = new Task[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            tasks[i] = new Task(i + 1, "Task", "Desc", TaskStatus.NEW);
+        }
+
+        long before = usedMemory();
+        Map<Integer, Task> boxed = new HashMap<>();
+        long boxedPut = time(() -> {
+            for (Task task : tasks) {
+                boxed.put(task.getId(), task);
+            }
+        });
+        long boxedBytes = usedMemory() - before;
+        long boxedGet = time(() -> {
+            for (int i = 1; i <= ENTRIES; i++) {
+                boxed.get(i);
+            }
+        });
+
+        before = usedMemory();
+        IntObjectHashMap<Task> primitive = new IntObjectHashMap<>();
+        long primitivePut = time(() -> {
+            for (Task task : tasks) {
+                primitive.put(task.getId(), task);
+            }
+        });
+        long primitiveBytes = usedMemory() - before;
+        long primitiveGet = time(() -> {
+            for (int i = 1; i <= ENTRIES; i++) {
+                primitive.get(i);
+            }
+        });
+
+        System.out.printf("%-26s %12s %12s %12s%n", "", "memory, MB", "put, ms", "get, ms");
+        System.out.printf("%-26s %12d %12d %12d%n", "HashMap<Integer, Task>",
+                boxedBytes >> 20, boxedPut, boxedGet);
+        System.out.printf("%-26s %12d %12d %12d%n", "IntObjectHashMap<Task>",
+                primitiveBytes >> 20, primitivePut, primitiveGet);
+
+        List<Integer> list = new ArrayList<>();
+        IntIndexedSet set = new IntIndexedSet();
+        for (int i = 0; i < MEMBERS; i++) {
+            list.add(i);
+            set.add(i);
+        }
+        long listRemove = time(() -> {
+            for (int i = 0; i < MEMBERS; i++) {
+                list.remove(Integer.valueOf(i));
+            }
+        });
+        long setRemove = time(() -> {
+            for (int i = 0; i < MEMBERS; i++) {
+                set.remove(i);
+            }
+        });
+        System.out.printf("%nУдаление %d подзадач эпика: List<Integer> %d ms, IntIndexedSet %d ms%n",
+                MEMBERS, listRemove, setRemove);
+
+        // держим ссылки до конца замеров
+        System.out.println(boxed.size() + primitive.size() > 0 ? "" : "-");
+    }
+
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
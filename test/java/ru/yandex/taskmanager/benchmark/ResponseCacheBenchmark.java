@@ -0,0 +1,97 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.ClientHistories;
+import ru.yandex.taskmanager.manager.ConcurrentTaskManager;
+import ru.yandex.taskmanager.manager.HttpTaskServer;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.ResponseCache;
+import ru.yandex.taskmanager.manager.ServerExecution;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Кэш готовых ответов HttpTaskServer: запросов в секунду на горячие списки
+// (/tasks, /prioritized, страницы /tasks) без кэша и с кэшем, при 1% изменений через HTTP.
+// Запуск: java ru.yandex.taskmanager.benchmark.ResponseCacheBenchmark
+public class ResponseCacheBenchmark {
+    private static final int TASKS = 1_000;
+    private static final int CLIENTS = 8;
+    private static final long RUN_MILLIS = 3_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.enableNoDelay(); // процесс бенчмарка - как запуск через main сервера
+        System.out.printf("%-16s %10s %10s%n", "cache", "req/s", "MB/s");
+        measure("off", null, false);
+        measure("on", new ResponseCache(), false);
+        measure("on, gzip", new ResponseCache(), true);
+    }
+
+    private static void measure(String name, ResponseCache cache, boolean gzip) throws Exception {
+        TaskManager manager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        for (int i = 1; i <= TASKS; i++) {
+            manager.createTask(new Task(i, "Task " + i, "Description " + i, TaskStatus.NEW,
+                    Duration.ofMinutes(30), START.plusHours(i)));
+        }
+        HttpTaskServer server = new HttpTaskServer(manager, 0, new ClientHistories(manager::findById),
+                ServerExecution.virtualThreads(), cache);
+        server.start();
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            String base = "http://localhost:" + server.getPort();
+            List<HttpRequest> reads = new ArrayList<>();
+            for (String path : List.of("/tasks", "/prioritized", "/tasks?limit=100", "/tasks?limit=100&cursor=100")) {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + path));
+                if (gzip) {
+                    builder.header("Accept-Encoding", "gzip");
+                }
+                reads.add(builder.build());
+            }
+            LongAdder requests = new LongAdder();
+            LongAdder bytes = new LongAdder();
+            long deadline = System.nanoTime() + RUN_MILLIS * 1_000_000;
+            List<Thread> workers = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                workers.add(Thread.ofVirtual().start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request;
+                        if (random.nextInt(100) == 0) {
+                            int id = 1 + random.nextInt(TASKS);
+                            request = HttpRequest.newBuilder(URI.create(base + "/tasks/" + id))
+                                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Task " + id
+                                            + "\",\"description\":\"Changed\",\"status\":\"DONE\"}"))
+                                    .build();
+                        } else {
+                            request = reads.get(random.nextInt(reads.size()));
+                        }
+                        try {
+                            bytes.add(client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length);
+                            requests.increment();
+                        } catch (IOException | InterruptedException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            System.out.printf("%-16s %10d %10.1f%n", name, requests.sum() * 1_000 / RUN_MILLIS,
+                    bytes.sum() / 1_048_576.0 / (RUN_MILLIS / 1_000.0));
+        } finally {
+            server.stop();
+        }
+    }
+}
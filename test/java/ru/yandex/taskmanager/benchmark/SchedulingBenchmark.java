@@ -0,0 +1,87 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.manager.TaskManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Поиск ближайшего свободного окна по индексу интервалов против прохода
+// по отсортированному списку задач. В расписании TASKS задач с короткими
+// промежутками, длинное окно есть только в конце.
+// Запуск: java ru.yandex.taskmanager.benchmark.SchedulingBenchmark
+public class SchedulingBenchmark {
+    private static final int TASKS = 100_000;
+    private static final int QUERIES = 2_000;
+    private static final int BATCH = 10_000;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        TaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        Random random = new Random(1);
+        LocalDateTime start = BASE;
+        for (int i = 1; i <= TASKS; i++) {
+            int minutes = 10 + random.nextInt(50);
+            manager.createTask(new Task(i, "Task " + i, "Desc", TaskStatus.NEW,
+                    Duration.ofMinutes(minutes), start));
+            start = start.plusMinutes(minutes + random.nextInt(15));
+        }
+
+        List<LocalDateTime> froms = new ArrayList<>();
+        List<Duration> durations = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            froms.add(BASE.plusMinutes(random.nextInt(TASKS * 30)));
+            durations.add(Duration.ofMinutes(5 + random.nextInt(20)));
+        }
+
+        long checksum = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            checksum += manager.findEarliestSlot(froms.get(i), durations.get(i)).getMinute();
+        }
+        long indexNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        List<Task> sorted = manager.getPrioritizedTasks();
+        for (int i = 0; i < QUERIES; i++) {
+            checksum -= linearScan(sorted, froms.get(i), durations.get(i)).getMinute();
+        }
+        long scanNanos = System.nanoTime() - begin;
+        if (checksum != 0) {
+            throw new IllegalStateException("Результаты поиска расходятся");
+        }
+
+        System.out.printf("earliest slot, index: %8.2f us/query%n", indexNanos / 1e3 / QUERIES);
+        System.out.printf("earliest slot, scan:  %8.2f us/query%n", scanNanos / 1e3 / QUERIES);
+
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new Task(0, "Batch " + i, "Desc", TaskStatus.NEW,
+                    Duration.ofMinutes(5 + random.nextInt(30)), null));
+        }
+        begin = System.nanoTime();
+        manager.autoSchedule(batch, BASE);
+        long batchNanos = System.nanoTime() - begin;
+        System.out.printf("auto schedule %d tasks: %8.2f ms%n", BATCH, batchNanos / 1e6);
+    }
+
+    private static LocalDateTime linearScan(List<Task> sorted, LocalDateTime from, Duration duration) {
+        LocalDateTime candidate = from;
+        for (Task task : sorted) {
+            if (!task.getEndTime().isAfter(candidate)) {
+                continue;
+            }
+            if (!candidate.plus(duration).isAfter(task.getStartTime())) {
+                return candidate;
+            }
+            candidate = task.getEndTime();
+        }
+        return candidate;
+    }
+}
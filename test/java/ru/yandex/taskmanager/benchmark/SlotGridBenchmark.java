@@ -0,0 +1,78 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.InMemoryTaskManager;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Проверка пересечения hasTimeOverlap по дереву интервалов и в режиме календаря
+// (битовая сетка по 15 минут). Расписание - TASKS задач по сетке на год вперёд,
+// занято около 70% слотов; запросы - случайные задачи по сетке в том же горизонте.
+// Запуск: java ru.yandex.taskmanager.benchmark.SlotGridBenchmark
+public class SlotGridBenchmark {
+    private static final int TASKS = 10_000;
+    private static final int DAYS = 365;
+    private static final int QUERIES = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final Duration SLOT = Duration.ofMinutes(15);
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    public static void main(String[] args) {
+        InMemoryTaskManager tree = fill(new InMemoryTaskManager(new InMemoryHistoryManager()));
+        InMemoryTaskManager grid = fill(new InMemoryTaskManager(new InMemoryHistoryManager()));
+        grid.useSlotGrid(SLOT, FIRST_DAY, DAYS);
+
+        Random random = new Random(7);
+        Task[] queries = new Task[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomTask(random, 0);
+        }
+
+        System.out.printf("%-6s %14s %14s%n", "round", "tree ns/op", "grid ns/op");
+        for (int round = 1; round <= ROUNDS; round++) {
+            long treeNanos = measure(tree, queries);
+            long gridNanos = measure(grid, queries);
+            System.out.printf("%-6d %14.1f %14.1f%n", round,
+                    (double) treeNanos / QUERIES, (double) gridNanos / QUERIES);
+        }
+    }
+
+    private static InMemoryTaskManager fill(InMemoryTaskManager manager) {
+        Random random = new Random(1);
+        int created = 0;
+        while (created < TASKS) {
+            Task task = randomTask(random, created + 1);
+            if (!manager.hasTimeOverlap(task)) {
+                manager.createTask(task);
+                created++;
+            }
+        }
+        return manager;
+    }
+
+    private static Task randomTask(Random random, int id) {
+        int slotsPerDay = (int) (Duration.ofDays(1).toSeconds() / SLOT.toSeconds());
+        LocalDateTime start = FIRST_DAY.atStartOfDay().plus(SLOT.multipliedBy(random.nextInt((DAYS - 1) * slotsPerDay)));
+        return new Task(id, "Task " + id, "Desc", TaskStatus.NEW, SLOT.multipliedBy(1 + random.nextInt(4)), start);
+    }
+
+    private static long measure(InMemoryTaskManager manager, Task[] queries) {
+        int overlaps = 0;
+        long begin = System.nanoTime();
+        for (Task query : queries) {
+            if (manager.hasTimeOverlap(query)) {
+                overlaps++;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (overlaps == 0) {
+            throw new IllegalStateException("В расписании нет пересечений");
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.SnapshotFiles;
+import ru.yandex.taskmanager.manager.SnapshotFormat;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Размер снимка и время записи/чтения в каждом формате.
+// Запуск: java ru.yandex.taskmanager.benchmark.SnapshotFormatBenchmark [число задач]
+public class SnapshotFormatBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<Task> tasks = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int epicId = 0;
+        for (int id = 1; id <= count; id++) {
+            if (id % 10 == 1) {
+                epicId = id;
+                tasks.add(new Epic(id, "Epic " + id, "Description", TaskStatus.NEW, Duration.ZERO, null, null));
+            } else if (id % 2 == 0) {
+                tasks.add(new Subtask(id, "Subtask " + id, "Description", TaskStatus.DONE, epicId,
+                        Duration.ofMinutes(30), base.plusMinutes(id * 30L)));
+            } else {
+                tasks.add(new Task(id, "Task " + id, "Description", TaskStatus.NEW,
+                        Duration.ofMinutes(30), base.plusMinutes(id * 30L)));
+            }
+        }
+
+        Path dir = Files.createTempDirectory("snapshot-format-benchmark");
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            Path file = dir.resolve(format.name());
+            long write = Long.MAX_VALUE;
+            long read = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                SnapshotFiles.writeAtomically(file, tasks, format);
+                write = Math.min(write, System.nanoTime() - start);
+
+                int[] loaded = new int[1];
+                start = System.nanoTime();
+                SnapshotFiles.read(file, task -> loaded[0]++);
+                read = Math.min(read, System.nanoTime() - start);
+            }
+            System.out.printf("%-15s %8d KB  write %5d ms  read %5d ms%n", format,
+                    Files.size(file) >> 10, write / 1_000_000, read / 1_000_000);
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.manager.FileBackedTaskManager;
+import ru.yandex.taskmanager.manager.InMemoryHistoryManager;
+import ru.yandex.taskmanager.manager.TaskCsvFormat;
+import ru.yandex.taskmanager.model.Epic;
+import ru.yandex.taskmanager.model.Subtask;
+import ru.yandex.taskmanager.model.Task;
+import ru.yandex.taskmanager.model.TaskStatus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Время загрузки большого снимка (последовательно и параллельно) и пик кучи во время загрузки.
+// Запуск: java ru.yandex.taskmanager.benchmark.SnapshotLoadBenchmark [число строк]
+public class SnapshotLoadBenchmark {
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path file = Files.createTempFile("snapshot-benchmark", ".csv");
+        try {
+            write(file, rows);
+            System.out.printf("rows=%d, file=%d MB%n", rows, Files.size(file) >> 20);
+            load(file, false);
+            load(file, true);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // каждая десятая строка - эпик, за ним подзадачи; часть имён с запятыми
+    private static void write(Path file, int rows) throws IOException {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(TaskCsvFormat.HEADER);
+            writer.newLine();
+            int epicId = 0;
+            for (int id = 1; id <= rows; id++) {
+                Task task;
+                if (id % 10 == 1) {
+                    epicId = id;
+                    task = new Epic(id, "Epic " + id, "Description", TaskStatus.NEW, Duration.ZERO, null, null);
+                } else if (id % 2 == 0) {
+                    task = new Subtask(id, "Subtask, " + id, "Description", TaskStatus.DONE, epicId,
+                            Duration.ofMinutes(1), base.plusMinutes(id * 2L));
+                } else {
+                    task = new Task(id, "Task " + id, "Description", TaskStatus.NEW,
+                            Duration.ofMinutes(1), base.plusMinutes(id * 2L));
+                }
+                writer.write(TaskCsvFormat.format(task));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void load(Path file, boolean parallel) {
+        System.gc();
+        long before = usedHeap();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(new InMemoryHistoryManager(), file);
+        long start = System.nanoTime();
+        if (parallel) {
+            manager.loadFromFileParallel();
+        } else {
+            manager.loadFromFile();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.gc();
+        long retained = usedHeap() - before;
+        int loaded = manager.getAllTasks().size() + manager.getAllSubTasks().size() + manager.getAllEpics().size();
+
+        System.out.printf("%-10s loaded=%d in %d ms, retained=%d MB, peak heap=%d MB%n",
+                parallel ? "parallel" : "sequential", loaded, elapsed / 1_000_000, retained >> 20, peak >> 20);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.taskmanager.benchmark;
+
+import ru.yandex.taskmanager.util.IntObjectSortedMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Ключи IntObjectSortedMap при частых удалениях: удаление случайных ключей,
+// удаление подзадач большого эпика подряд и вставки не по порядку вперемешку со страницами.
+// Сравнение с TreeMap<Integer, V>.
+// Запуск: java ru.yandex.taskmanager.benchmark.SortedKeysBenchmark
+public class SortedKeysBenchmark {
+    private static final int ENTRIES = 200_000;
+    private static final int EPIC_SUBTASKS = 50_000;
+    private static final int ROUNDS = 100_000;
+
+    public static void main(String[] args) {
+        for (int warmup = 0; warmup < 2; warmup++) {
+            run(false);
+        }
+        run(true);
+    }
+
+    private static void run(boolean print) {
+        int[] shuffled = shuffled(ENTRIES, 7);
+
+        IntObjectSortedMap<Integer> map = new IntObjectSortedMap<>();
+        TreeMap<Integer, Integer> tree = new TreeMap<>();
+        long mapFill = time(() -> fill(map, shuffled));
+        long treeFill = time(() -> {
+            for (int key : shuffled) {
+                tree.put(key, key);
+            }
+        });
+        // случайные удаления половины ключей
+        long mapRemove = time(() -> {
+            for (int i = 0; i < ENTRIES / 2; i++) {
+                map.remove(shuffled[i]);
+            }
+        });
+        long treeRemove = time(() -> {
+            for (int i = 0; i < ENTRIES / 2; i++) {
+                tree.remove(shuffled[i]);
+            }
+        });
+
+        // deleteEpicId: подзадачи эпика удаляются одна за другой
+        IntObjectSortedMap<Integer> subtasks = new IntObjectSortedMap<>();
+        TreeMap<Integer, Integer> subtaskTree = new TreeMap<>();
+        for (int i = 1; i <= EPIC_SUBTASKS * 2; i++) {
+            subtasks.put(i, i);
+            subtaskTree.put(i, i);
+        }
+        long mapEpic = time(() -> {
+            for (int i = 1; i <= EPIC_SUBTASKS * 2; i += 2) {
+                subtasks.remove(i);
+            }
+        });
+        long treeEpic = time(() -> {
+            for (int i = 1; i <= EPIC_SUBTASKS * 2; i += 2) {
+                subtaskTree.remove(i);
+            }
+        });
+
+        // вставки не по порядку, удаления и страница на каждом шаге
+        Random random = new Random(3);
+        long mapMixed = time(() -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                int key = random.nextInt(ENTRIES * 2);
+                if ((i & 1) == 0) {
+                    map.put(key, key);
+                } else {
+                    map.remove(key);
+                }
+                map.valuesAfter(random.nextInt(ENTRIES * 2), 20);
+            }
+        });
+        Random treeRandom = new Random(3);
+        long treeMixed = time(() -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                int key = treeRandom.nextInt(ENTRIES * 2);
+                if ((i & 1) == 0) {
+                    tree.put(key, key);
+                } else {
+                    tree.remove(key);
+                }
+                List<Integer> page = new ArrayList<>(20);
+                for (Integer value : tree.tailMap(treeRandom.nextInt(ENTRIES * 2), false).values()) {
+                    if (page.size() == 20) {
+                        break;
+                    }
+                    page.add(value);
+                }
+            }
+        });
+
+        if (print) {
+            System.out.printf("%-22s %10s %12s %14s %14s%n", "", "fill, ms", "remove, ms", "epic del, ms", "mixed, ms");
+            System.out.printf("%-22s %10d %12d %14d %14d%n", "IntObjectSortedMap", mapFill, mapRemove, mapEpic, mapMixed);
+            System.out.printf("%-22s %10d %12d %14d %14d%n", "TreeMap<Integer, V>", treeFill, treeRemove, treeEpic, treeMixed);
+        }
+    }
+
+    private static void fill(IntObjectSortedMap<Integer> map, int[] keys) {
+        for (int key : keys) {
+            map.put(key, key);
+        }
+    }
+
+    private static int[] shuffled(int count, long seed) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i + 1;
+        }
+        Random random = new Random(seed);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        return keys;
+    }
+
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}